@@ -0,0 +1,18 @@
+-- Denormalized line totals: order_items.line_total = unit_price * quantity, written at order creation
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.columns WHERE object_id = OBJECT_ID(N'[dbo].[order_items]') AND name = 'line_total')
+BEGIN
+    ALTER TABLE order_items ADD [line_total] DECIMAL(12,2) NULL;
+    PRINT '✓ Column line_total added to order_items';
+END
+ELSE
+BEGIN
+    PRINT '✓ Column line_total already exists';
+END
+GO
+
+-- Backfill existing rows (safe to re-run)
+UPDATE order_items SET line_total = unit_price * quantity WHERE line_total IS NULL;
+PRINT '✓ Backfilled ' + CAST(@@ROWCOUNT AS NVARCHAR(20)) + ' order item line totals';
+GO
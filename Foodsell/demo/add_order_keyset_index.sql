@@ -0,0 +1,15 @@
+-- Index for keyset pagination of orders on (created_at, id)
+GO
+
+PRINT '===== Adding keyset pagination index on orders =====';
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE object_id = OBJECT_ID(N'[dbo].[orders]') AND name = 'IX_orders_created_at_id')
+BEGIN
+    CREATE INDEX IX_orders_created_at_id ON orders (created_at DESC, id DESC);
+    PRINT '✓ Index IX_orders_created_at_id created';
+END
+ELSE
+BEGIN
+    PRINT '✓ Index IX_orders_created_at_id already exists';
+END
+GO
@@ -0,0 +1,15 @@
+-- Index for status-filtered order queries (pending-payment reconciler, status lists)
+GO
+
+PRINT '===== Adding status index on orders =====';
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE object_id = OBJECT_ID(N'[dbo].[orders]') AND name = 'IX_orders_status_created_at')
+BEGIN
+    CREATE INDEX IX_orders_status_created_at ON orders (status, created_at) INCLUDE (payos_order_code);
+    PRINT '✓ Index IX_orders_status_created_at created';
+END
+ELSE
+BEGIN
+    PRINT '✓ Index IX_orders_status_created_at already exists';
+END
+GO
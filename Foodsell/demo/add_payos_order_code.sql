@@ -0,0 +1,30 @@
+-- Add dedicated PayOS order code column to orders (replaces scanning notes for "PayOS:<code>")
+GO
+
+-- Existing rows are backfilled from notes by PayOSOrderCodeBackfill when the application starts
+PRINT '===== Adding payos_order_code to orders =====';
+
+IF NOT EXISTS (SELECT * FROM sys.columns WHERE object_id = OBJECT_ID(N'[dbo].[orders]') AND name = 'payos_order_code')
+BEGIN
+    ALTER TABLE orders
+    ADD [payos_order_code] INT NULL;
+    PRINT '✓ Column payos_order_code added';
+END
+ELSE
+BEGIN
+    PRINT '✓ Column payos_order_code already exists';
+END
+GO
+
+-- Unique lookup index; filtered so that orders without a PayOS code (NULL) are allowed
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE object_id = OBJECT_ID(N'[dbo].[orders]') AND name = 'UX_orders_payos_order_code')
+BEGIN
+    CREATE UNIQUE INDEX UX_orders_payos_order_code ON orders (payos_order_code)
+    WHERE payos_order_code IS NOT NULL;
+    PRINT '✓ Index UX_orders_payos_order_code created';
+END
+ELSE
+BEGIN
+    PRINT '✓ Index UX_orders_payos_order_code already exists';
+END
+GO
@@ -0,0 +1,26 @@
+-- Indexes for the product catalogue API (GET /api/products/catalog): filter by category or shop, price range/sort
+GO
+
+PRINT '===== Adding catalogue indexes on products =====';
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE object_id = OBJECT_ID(N'[dbo].[products]') AND name = 'IX_products_catalog')
+BEGIN
+    CREATE INDEX IX_products_catalog ON products (approval_status, is_available, category_id, price);
+    PRINT '✓ Index IX_products_catalog created';
+END
+ELSE
+BEGIN
+    PRINT '✓ Index IX_products_catalog already exists';
+END
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE object_id = OBJECT_ID(N'[dbo].[products]') AND name = 'IX_products_catalog_shop')
+BEGIN
+    CREATE INDEX IX_products_catalog_shop ON products (approval_status, is_available, shop_id, price);
+    PRINT '✓ Index IX_products_catalog_shop created';
+END
+ELSE
+BEGIN
+    PRINT '✓ Index IX_products_catalog_shop already exists';
+END
+GO
@@ -0,0 +1,45 @@
+-- Order summary projection: one row per order for compact order history lists
+GO
+
+PRINT '===== Creating order_summaries =====';
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'order_summaries')
+BEGIN
+    CREATE TABLE order_summaries (
+        order_id INT PRIMARY KEY,
+        buyer_id INT NOT NULL,
+        shop_id INT NOT NULL,
+        status NVARCHAR(255) NOT NULL,
+        total_amount DECIMAL(10,2) NOT NULL,
+        item_count INT NOT NULL,
+        thumbnail_url NVARCHAR(255), -- image_url of the first product in the order
+        created_at DATETIME2,
+        updated_at DATETIME2
+    );
+    PRINT '✓ Table order_summaries created';
+END
+ELSE
+BEGIN
+    PRINT '✓ Table order_summaries already exists';
+END
+GO
+
+-- Buyer order history: WHERE buyer_id = ? ORDER BY created_at DESC, order_id DESC
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE object_id = OBJECT_ID(N'[dbo].[order_summaries]') AND name = 'IX_order_summaries_buyer_created')
+BEGIN
+    CREATE INDEX IX_order_summaries_buyer_created ON order_summaries (buyer_id, created_at DESC, order_id DESC);
+    PRINT '✓ Index IX_order_summaries_buyer_created created';
+END
+GO
+
+-- Backfill orders created before the projection existed (safe to re-run)
+INSERT INTO order_summaries (order_id, buyer_id, shop_id, status, total_amount, item_count, thumbnail_url, created_at, updated_at)
+SELECT o.id, o.buyer_id, o.shop_id, o.status, o.total_amount,
+       (SELECT COUNT(*) FROM order_items oi WHERE oi.order_id = o.id),
+       (SELECT TOP 1 p.image_url FROM order_items oi JOIN products p ON p.id = oi.product_id
+        WHERE oi.order_id = o.id ORDER BY oi.id),
+       o.created_at, o.created_at
+FROM orders o
+WHERE NOT EXISTS (SELECT 1 FROM order_summaries s WHERE s.order_id = o.id);
+PRINT '✓ Backfilled ' + CAST(@@ROWCOUNT AS NVARCHAR(20)) + ' order summaries';
+GO
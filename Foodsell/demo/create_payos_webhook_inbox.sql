@@ -0,0 +1,49 @@
+-- PayOS webhook inbox: one row per distinct delivery, used to make webhook processing idempotent
+GO
+
+PRINT '===== Creating payos_webhook_inbox =====';
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'payos_webhook_inbox')
+BEGIN
+    CREATE TABLE payos_webhook_inbox (
+        id BIGINT IDENTITY(1,1) PRIMARY KEY,
+        order_code INT NOT NULL,
+        transaction_id NVARCHAR(100) NOT NULL, -- PayOS transaction id, or 'status:<STATUS>' when absent
+        status NVARCHAR(20),
+        amount INT,
+        event_timestamp NVARCHAR(50),
+        received_at DATETIME2 DEFAULT GETDATE(),
+        processed_at DATETIME2 NULL, -- NULL = waiting in the async processing queue
+        attempts INT NOT NULL DEFAULT 0,
+        last_error NVARCHAR(500),
+        CONSTRAINT UX_payos_webhook_inbox_order_tx UNIQUE (order_code, transaction_id)
+    );
+    PRINT '✓ Table payos_webhook_inbox created';
+END
+ELSE
+BEGIN
+    PRINT '✓ Table payos_webhook_inbox already exists';
+END
+GO
+
+-- Async processing columns (for tables created before the webhook queue existed)
+IF NOT EXISTS (SELECT * FROM sys.columns WHERE object_id = OBJECT_ID(N'[dbo].[payos_webhook_inbox]') AND name = 'processed_at')
+BEGIN
+    ALTER TABLE payos_webhook_inbox ADD
+        [event_timestamp] NVARCHAR(50) NULL,
+        [processed_at] DATETIME2 NULL,
+        [attempts] INT NOT NULL DEFAULT 0,
+        [last_error] NVARCHAR(500) NULL;
+    -- Existing rows were written by the synchronous path and applied when received
+    EXEC('UPDATE payos_webhook_inbox SET processed_at = received_at, attempts = 1');
+    PRINT '✓ Async processing columns added';
+END
+GO
+
+-- Sweeper lookup of pending events
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE object_id = OBJECT_ID(N'[dbo].[payos_webhook_inbox]') AND name = 'IX_payos_webhook_inbox_pending')
+BEGIN
+    CREATE INDEX IX_payos_webhook_inbox_pending ON payos_webhook_inbox (id) WHERE processed_at IS NULL;
+    PRINT '✓ Index IX_payos_webhook_inbox_pending created';
+END
+GO
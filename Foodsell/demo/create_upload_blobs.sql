@@ -0,0 +1,21 @@
+-- Content-addressed uploads: one row per distinct file (SHA-256), with the number of stored URLs using it
+GO
+
+PRINT '===== Creating upload_blobs =====';
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'upload_blobs')
+BEGIN
+    CREATE TABLE upload_blobs (
+        hash CHAR(64) NOT NULL PRIMARY KEY, -- lowercase hex SHA-256 of the content
+        path NVARCHAR(255) NOT NULL,        -- uploads/blobs/<first 2 hex>/<hash><ext>
+        size BIGINT,
+        ref_count INT NOT NULL DEFAULT 1,   -- owners using it; swept only at 0 with no stored URL left
+        created_at DATETIME2 DEFAULT GETDATE()
+    );
+    PRINT '✓ Table upload_blobs created';
+END
+ELSE
+BEGIN
+    PRINT '✓ Table upload_blobs already exists';
+END
+GO
@@ -2,8 +2,10 @@ package com.example.demo;
 
 import com.example.demo.config.RoleChecker;
 import com.example.demo.dto.OrderDTO;
+import com.example.demo.dto.OrderSummaryDTO;
 import com.example.demo.Orders.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -49,6 +51,29 @@ public class CustomerController {
         return List.of();
     }
     
+    // GET: Lịch sử đơn hàng rút gọn của tôi (số món, tổng tiền, trạng thái, ảnh đại diện)
+    @GetMapping("/my-orders/summary")
+    @PreAuthorize("isAuthenticated()")
+    public List<OrderSummaryDTO> getMyOrderSummaries() {
+        var currentUser = roleChecker.getCurrentUser();
+        if (currentUser != null) {
+            return orderService.getOrderSummariesByBuyerId(currentUser.getId());
+        }
+        return List.of();
+    }
+    
+    // POST: Xác nhận đã nhận hàng (delivered → completed)
+    @PostMapping("/my-orders/{orderId}/complete")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Map<String, Object>> completeMyOrder(@PathVariable Integer orderId) {
+        var currentUser = roleChecker.getCurrentUser();
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        return OrderStatusResponses.toResponse(orderService.completeOrder(orderId, currentUser.getId()));
+    }
+    
     // GET: Giỏ hàng của tôi
     @GetMapping("/cart")
     @PreAuthorize("isAuthenticated()")
@@ -1,12 +1,20 @@
 package com.example.demo;
 
 import com.example.demo.dto.OrderDTO;
+import com.example.demo.dto.OrderPageDTO;
 import com.example.demo.Orders.OrderService;
+import com.example.demo.PayOS.PayOSWebhookInbox;
 import com.example.demo.config.RoleChecker;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -16,13 +24,20 @@ import java.util.HashMap;
 @CrossOrigin(origins = "http://localhost:3000")
 public class OrderController {
     
+    private static final int EXPORT_BATCH_SIZE = 500;
+    
     private final OrderService orderService;
     private final RoleChecker roleChecker;
+    private final ObjectMapper objectMapper;
+    private final PayOSWebhookInbox webhookInbox;
 
     @Autowired
-    public OrderController(OrderService orderService, RoleChecker roleChecker) {
+    public OrderController(OrderService orderService, RoleChecker roleChecker, ObjectMapper objectMapper,
+                           PayOSWebhookInbox webhookInbox) {
         this.orderService = orderService;
         this.roleChecker = roleChecker;
+        this.objectMapper = objectMapper;
+        this.webhookInbox = webhookInbox;
     }
 
     // GET: Lấy tất cả đơn hàng (chỉ admin và seller)
@@ -32,6 +47,40 @@ public class OrderController {
         return orderService.getAllOrders();
     }
     
+    // GET: Lấy đơn hàng theo trang (keyset cursor trên created_at, id) - admin và seller
+    @GetMapping("/page")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SELLER')")
+    public OrderPageDTO getOrdersPage(@RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false) Integer size) {
+        return orderService.getOrdersPage(cursor, size);
+    }
+    
+    // GET: Xuất toàn bộ đơn hàng dạng NDJSON (mỗi dòng một đơn), stream theo từng trang - chỉ admin
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportOrders() {
+        StreamingResponseBody body = outputStream -> {
+            try {
+                orderService.forEachOrder(EXPORT_BATCH_SIZE, order -> writeLine(outputStream, order));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            outputStream.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+    
+    private void writeLine(OutputStream outputStream, OrderDTO order) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(order));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
     // GET: Lấy đơn hàng theo ID (authenticated users)
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
@@ -58,7 +107,7 @@ public class OrderController {
             List<Map<String, Object>> cartItems = (List<Map<String, Object>>) orderData.get("cartItems");
             Integer payosOrderCode = (Integer) orderData.get("payosOrderCode");
             Integer totalAmount = (Integer) orderData.get("totalAmount");
-            String status = (String) orderData.getOrDefault("status", "pending");
+            // "status" from the client (e.g. "pending_payment") is ignored: new orders always start pending
             
             // Create order using service
             Map<String, Object> result = orderService.createOrder(
@@ -66,8 +115,7 @@ public class OrderController {
                 paymentInfo, 
                 cartItems, 
                 payosOrderCode, 
-                totalAmount, 
-                status
+                totalAmount
             );
             
             if ((Boolean) result.get("success")) {
@@ -125,10 +173,16 @@ public class OrderController {
             String transactionId = (String) webhookData.get("transactionId");
             String timestamp = (String) webhookData.get("timestamp");
             
-            // Process payment result
-            boolean success = orderService.processPaymentResult(orderCode, status, amount, transactionId, timestamp);
+            // Process payment result (once per orderCode + transactionId)
+            PayOSWebhookInbox.Outcome outcome = webhookInbox.receive(orderCode, status, amount, transactionId, timestamp);
             
-            if (success) {
+            if (outcome == PayOSWebhookInbox.Outcome.DUPLICATE) {
+                return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "duplicate", true,
+                    "message", "Payment webhook already processed"
+                ));
+            } else if (outcome == PayOSWebhookInbox.Outcome.PROCESSED) {
                 return ResponseEntity.ok(Map.of(
                     "success", true,
                     "message", "Payment webhook processed successfully"
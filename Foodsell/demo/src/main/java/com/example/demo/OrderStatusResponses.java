@@ -0,0 +1,41 @@
+package com.example.demo;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// HTTP responses for the order status endpoints (seller, shipper, customer): OrderService results carry an
+// "error" code, mapped here to the status code the clients expect
+final class OrderStatusResponses {
+
+    private OrderStatusResponses() {
+    }
+
+    static ResponseEntity<Map<String, Object>> toResponse(Map<String, Object> result) {
+        if (Boolean.TRUE.equals(result.get("success"))) {
+            return ResponseEntity.ok(result);
+        }
+        Object error = result.get("error");
+        if ("NOT_FOUND".equals(error)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(result);
+        }
+        if ("FORBIDDEN".equals(error)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(result);
+        }
+        if ("CONFLICT".equals(error)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+        }
+        return ResponseEntity.badRequest().body(result);
+    }
+
+    static ResponseEntity<Map<String, Object>> rejected(Integer orderId, String error, String message) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", false);
+        result.put("error", error);
+        result.put("message", message);
+        result.put("orderId", orderId);
+        return toResponse(result);
+    }
+}
@@ -4,15 +4,20 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "IX_orders_created_at_id", columnList = "created_at DESC, id DESC"),
+    @Index(name = "IX_orders_status_created_at", columnList = "status, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@DynamicUpdate // entity saves only write changed columns, so they never overwrite a concurrent status transition
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -39,6 +44,10 @@ public class Order {
     @Column(name = "notes", columnDefinition = "NVARCHAR(MAX)")
     private String notes;
 
+    // PayOS order code (unique, filtered index UX_orders_payos_order_code - see add_payos_order_code.sql)
+    @Column(name = "payos_order_code")
+    private Integer payosOrderCode;
+
     @Column(name = "recipient_name")
     private String recipientName;
 
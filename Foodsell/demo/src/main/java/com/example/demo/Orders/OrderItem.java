@@ -29,6 +29,10 @@ public class OrderItem {
     @Column(name = "unit_price", nullable = false, precision = 10, scale = 2)
     private BigDecimal unitPrice;
 
+    // unit_price * quantity, stored at order creation (null on rows written before the column existed)
+    @Column(name = "line_total", precision = 12, scale = 2)
+    private BigDecimal lineTotal;
+
     // Many-to-one relationship with Order
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id", insertable = false, updatable = false)
@@ -41,10 +45,18 @@ public class OrderItem {
         this.productId = productId;
         this.quantity = quantity;
         this.unitPrice = unitPrice;
+        this.lineTotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        if (lineTotal == null && unitPrice != null && quantity != null) {
+            lineTotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
+        }
     }
 
-    // Helper method to calculate total price for this item
+    // Total price for this item: the stored line total, computed only for legacy rows
     public BigDecimal getTotalPrice() {
-        return unitPrice.multiply(BigDecimal.valueOf(quantity));
+        return lineTotal != null ? lineTotal : unitPrice.multiply(BigDecimal.valueOf(quantity));
     }
 }
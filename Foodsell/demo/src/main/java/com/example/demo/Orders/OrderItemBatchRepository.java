@@ -0,0 +1,34 @@
+package com.example.demo.Orders;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// JDBC batch insert for order items: OrderItem uses IDENTITY ids, which disables Hibernate insert batching,
+// so a cart is written here with one batched statement instead of one round trip per line
+@Repository
+public class OrderItemBatchRepository {
+    private static final String INSERT_SQL =
+            "INSERT INTO order_items (order_id, product_id, quantity, unit_price, line_total) VALUES (?, ?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 100;
+
+    private final JdbcTemplate jdbc;
+
+    public OrderItemBatchRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public void insertAll(List<OrderItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate(INSERT_SQL, items, BATCH_SIZE, (ps, item) -> {
+            ps.setInt(1, item.getOrderId());
+            ps.setInt(2, item.getProductId());
+            ps.setInt(3, item.getQuantity());
+            ps.setBigDecimal(4, item.getUnitPrice());
+            ps.setBigDecimal(5, item.getTotalPrice());
+        });
+    }
+}
@@ -2,6 +2,7 @@ package com.example.demo.Orders;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -10,6 +11,9 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Integer> {
     // Find order items by order ID
     List<OrderItem> findByOrderId(Integer orderId);
     
+    // Find order items of many orders in one query (batch loading for listings)
+    List<OrderItem> findByOrderIdIn(Collection<Integer> orderIds);
+    
     // Find order items by product ID
     List<OrderItem> findByProductId(Integer productId);
     
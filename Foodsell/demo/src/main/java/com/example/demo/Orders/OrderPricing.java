@@ -0,0 +1,115 @@
+package com.example.demo.Orders;
+
+import com.example.demo.products.Product;
+import com.example.demo.products.ProductRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Server-side pricing of a cart: unit prices come from products.price (one IN query for the whole cart),
+// never from the client, and all arithmetic is exact BigDecimal at the scale of the money columns
+@Component
+public class OrderPricing {
+    public static final int MONEY_SCALE = 2;
+
+    private final ProductRepository productRepository;
+    private final BigDecimal shippingFee;
+
+    public OrderPricing(ProductRepository productRepository,
+                        @Value("${order.shipping-fee:15000}") BigDecimal shippingFee) {
+        this.productRepository = productRepository;
+        this.shippingFee = shippingFee.setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CartLine {
+        private final Integer productId;
+        private final int quantity;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class PricedLine {
+        private final Integer productId;
+        private final int quantity;
+        private final BigDecimal unitPrice;
+        private final BigDecimal lineTotal;
+        private final String imageUrl;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class PricedCart {
+        private final List<PricedLine> lines;
+        private final BigDecimal subtotal;
+        private final BigDecimal shippingFee;
+        private final BigDecimal total;
+    }
+
+    // Parse the cart items sent by the checkout page ({productId, quantity, ...}); the client price is ignored
+    public static List<CartLine> parseCart(List<Map<String, Object>> cartItems) {
+        List<CartLine> lines = new ArrayList<>(cartItems == null ? 0 : cartItems.size());
+        if (cartItems == null) {
+            return lines;
+        }
+        for (Map<String, Object> item : cartItems) {
+            Object productId = item.get("productId");
+            Object quantity = item.get("quantity");
+            if (!(productId instanceof Number) || !(quantity instanceof Number)) {
+                throw new IllegalArgumentException("Missing productId or quantity in cart item: " + item);
+            }
+            int qty = ((Number) quantity).intValue();
+            if (qty <= 0) {
+                throw new IllegalArgumentException("Invalid quantity " + qty + " for product " + productId);
+            }
+            lines.add(new CartLine(((Number) productId).intValue(), qty));
+        }
+        return lines;
+    }
+
+    public PricedCart price(List<CartLine> lines) {
+        Set<Integer> productIds = new LinkedHashSet<>();
+        for (CartLine line : lines) {
+            productIds.add(line.getProductId());
+        }
+        Map<Integer, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            products.put(product.getId(), product);
+        }
+        return price(lines, products, shippingFee);
+    }
+
+    // Pure pricing step, separated from the lookup so it can be benchmarked on its own
+    public static PricedCart price(List<CartLine> lines, Map<Integer, Product> products, BigDecimal shippingFee) {
+        List<PricedLine> priced = new ArrayList<>(lines.size());
+        BigDecimal subtotal = BigDecimal.ZERO.setScale(MONEY_SCALE);
+        for (CartLine line : lines) {
+            Product product = products.get(line.getProductId());
+            if (product == null) {
+                throw new IllegalArgumentException("Product not found: " + line.getProductId());
+            }
+            BigDecimal unitPrice = toMoney(product.getPrice());
+            BigDecimal lineTotal = unitPrice.multiply(BigDecimal.valueOf(line.getQuantity()));
+            priced.add(new PricedLine(line.getProductId(), line.getQuantity(), unitPrice, lineTotal, product.getImageUrl()));
+            subtotal = subtotal.add(lineTotal);
+        }
+        return new PricedCart(priced, subtotal, shippingFee, subtotal.add(shippingFee));
+    }
+
+    // products.price is a double: BigDecimal.valueOf uses its shortest decimal form (45000.0, not the binary
+    // expansion new BigDecimal(double) produces), then round to the money scale
+    static BigDecimal toMoney(double price) {
+        return BigDecimal.valueOf(price).setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+    }
+}
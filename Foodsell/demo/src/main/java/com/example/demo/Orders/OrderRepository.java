@@ -1,10 +1,13 @@
 package com.example.demo.Orders;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import com.example.demo.dto.OrderSummaryDTO;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +26,28 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
     // Find orders by notes containing text
     List<Order> findByNotesContaining(String text);
     
+    // Find order by PayOS order code (indexed lookup)
+    Optional<Order> findByPayosOrderCode(Integer payosOrderCode);
+    
+    boolean existsByPayosOrderCode(Integer payosOrderCode);
+    
+    // PayOS (online) orders carry an order code; cash-on-delivery orders do not
+    boolean existsByIdAndPayosOrderCodeIsNotNull(Integer id);
+    
+    // Legacy orders whose PayOS order code is still only stored in notes (for backfill, keyset by id)
+    @Query("SELECT o FROM Order o WHERE o.id > :afterId AND o.payosOrderCode IS NULL " +
+           "AND o.notes LIKE 'PayOS:%' ORDER BY o.id ASC")
+    List<Order> findOrdersMissingPayosOrderCode(@Param("afterId") Integer afterId, Pageable pageable);
+    
+    // PayOS orders still pending since before the cutoff (for the reconciler, keyset by id);
+    // statuses = OrderStatus.PENDING.getStoredValues()
+    @Query("SELECT o FROM Order o WHERE o.status IN :statuses AND o.payosOrderCode IS NOT NULL " +
+           "AND o.createdAt < :createdBefore AND o.id > :afterId ORDER BY o.id ASC")
+    List<Order> findStalePendingPayosOrders(@Param("statuses") Collection<String> statuses,
+                                            @Param("createdBefore") LocalDateTime createdBefore,
+                                            @Param("afterId") Integer afterId,
+                                            Pageable pageable);
+    
     // Find orders by buyer ID and status
     List<Order> findByBuyerIdAndStatusOrderByCreatedAtDesc(Integer buyerId, String status);
     
@@ -41,9 +66,54 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
     @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems WHERE o.shopId = :shopId ORDER BY o.createdAt DESC")
     List<Order> findByShopIdWithOrderItems(@Param("shopId") Integer shopId);
     
+    // Keyset pagination on (created_at, id) - first page
+    @Query("SELECT o FROM Order o ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findFirstPage(Pageable pageable);
+    
+    // Keyset pagination on (created_at, id) - rows strictly after the cursor
+    @Query("SELECT o FROM Order o WHERE o.createdAt < :createdAt " +
+           "OR (o.createdAt = :createdAt AND o.id < :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                              @Param("id") Integer id,
+                              Pageable pageable);
+    
+    // Current status only (no entity hydration), used before a conditional transition
+    @Query("SELECT o.status FROM Order o WHERE o.id = :id")
+    Optional<String> findStatusById(@Param("id") Integer id);
+    
+    @Query("SELECT o.buyerId FROM Order o WHERE o.id = :id")
+    Optional<Integer> findBuyerIdById(@Param("id") Integer id);
+    
+    @Query("SELECT o.shopId FROM Order o WHERE o.id = :id")
+    Optional<Integer> findShopIdById(@Param("id") Integer id);
+    
+    // Conditional status transition: only applies if the status is still the one we read (compare-and-set)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :toStatus WHERE o.id = :id AND o.status = :fromStatus")
+    int updateStatusIfCurrent(@Param("id") Integer id,
+                              @Param("fromStatus") String fromStatus,
+                              @Param("toStatus") String toStatus);
+    
+    // Conditional status transition that also appends payment information to notes
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :toStatus, o.notes = CONCAT(COALESCE(o.notes, ''), :noteSuffix) " +
+           "WHERE o.id = :id AND o.status = :fromStatus")
+    int updateStatusAndAppendNotesIfCurrent(@Param("id") Integer id,
+                                            @Param("fromStatus") String fromStatus,
+                                            @Param("toStatus") String toStatus,
+                                            @Param("noteSuffix") String noteSuffix);
+    
+    // Append to notes without touching the status
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.notes = CONCAT(COALESCE(o.notes, ''), :noteSuffix) WHERE o.id = :id")
+    int appendNotes(@Param("id") Integer id, @Param("noteSuffix") String noteSuffix);
+    
     // Count orders by status
     long countByStatus(String status);
     
+    long countByStatusIn(Collection<String> statuses);
+    
     // Count orders by buyer ID
     long countByBuyerId(Integer buyerId);
     
@@ -66,13 +136,4 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
     List<Order> findByShopIdBetweenDates(@Param("shopId") Integer shopId,
                                         @Param("startDate") java.time.LocalDateTime startDate, 
                                         @Param("endDate") java.time.LocalDateTime endDate);
-    
-    // Map query result to DTO - Order summaries by buyer
-    @Query("SELECT new com.example.demo.dto.OrderSummaryDTO(" +
-           "o.id, o.totalAmount, o.status, COUNT(oi.id)) " +
-           "FROM Order o LEFT JOIN o.orderItems oi " +
-           "WHERE o.buyerId = :buyerId " +
-           "GROUP BY o.id, o.totalAmount, o.status " +
-           "ORDER BY o.id DESC")
-    List<OrderSummaryDTO> findOrderSummariesByBuyerId(@Param("buyerId") Integer buyerId);
 }
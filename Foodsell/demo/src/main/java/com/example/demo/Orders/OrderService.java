@@ -2,33 +2,56 @@ package com.example.demo.Orders;
 
 import com.example.demo.dto.OrderDTO;
 import com.example.demo.dto.OrderItemDTO;
+import com.example.demo.dto.OrderPageDTO;
+import com.example.demo.dto.OrderSummaryDTO;
+import com.example.demo.products.Product;
+import com.example.demo.products.ProductRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.stream.Collectors;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public class OrderService {
+    private static final int ORDER_ID_BATCH_SIZE = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_TRANSITION_ATTEMPTS = 3;
+
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
+    private final OrderItemBatchRepository orderItemBatchRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final ProductRepository productRepository;
+    private final OrderPricing orderPricing;
 
-    public OrderService(OrderRepository orderRepository, OrderItemRepository orderItemRepository) {
+    public OrderService(OrderRepository orderRepository, OrderItemRepository orderItemRepository,
+                        OrderItemBatchRepository orderItemBatchRepository,
+                        OrderSummaryRepository orderSummaryRepository, ProductRepository productRepository,
+                        OrderPricing orderPricing) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
+        this.orderItemBatchRepository = orderItemBatchRepository;
+        this.orderSummaryRepository = orderSummaryRepository;
+        this.productRepository = productRepository;
+        this.orderPricing = orderPricing;
     }
 
     public List<OrderDTO> getAllOrders() {
         // Use custom query to fetch orders with order items
         List<Order> orders = orderRepository.findAll();
-        // Manually fetch order items for each order to avoid lazy loading issues
-        for (Order order : orders) {
-            order.setOrderItems(orderItemRepository.findByOrderId(order.getId()));
-        }
+        // Load order items for all orders in batched IN queries (avoid N+1)
+        attachOrderItems(orders);
         return orders.stream()
                 .map(this::convertToOrderDTO)
                 .collect(Collectors.toList());
@@ -45,45 +68,227 @@ public class OrderService {
     
     public List<OrderDTO> getOrdersByBuyerId(Integer buyerId) {
         List<Order> orders = orderRepository.findByBuyerIdOrderByCreatedAtDesc(buyerId);
-        // Load order items for each order
-        for (Order order : orders) {
-            order.setOrderItems(orderItemRepository.findByOrderId(order.getId()));
-        }
+        // Load order items for all orders in batched IN queries (avoid N+1)
+        attachOrderItems(orders);
         return orders.stream()
                 .map(this::convertToOrderDTO)
                 .collect(Collectors.toList());
     }
     
+    // Compact order history (no items) served from the order_summaries projection in one indexed read
+    @Transactional(readOnly = true)
+    public List<OrderSummaryDTO> getOrderSummariesByBuyerId(Integer buyerId) {
+        return orderSummaryRepository.findSummariesByBuyerId(buyerId);
+    }
+    
     public List<OrderDTO> getOrdersByShopId(Integer shopId) {
         List<Order> orders = orderRepository.findByShopIdOrderByCreatedAtDesc(shopId);
-        // Load order items for each order
-        for (Order order : orders) {
-            order.setOrderItems(orderItemRepository.findByOrderId(order.getId()));
-        }
+        // Load order items for all orders in batched IN queries (avoid N+1)
+        attachOrderItems(orders);
         return orders.stream()
                 .map(this::convertToOrderDTO)
                 .collect(Collectors.toList());
     }
     
+    // Keyset pagination on (created_at, id): cost per page does not grow with the table size
+    @Transactional(readOnly = true)
+    public OrderPageDTO getOrdersPage(String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        
+        // Fetch one extra row to know whether another page exists
+        List<Order> orders = fetchPage(decodeCursor(cursor), pageSize + 1);
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders = new ArrayList<>(orders.subList(0, pageSize));
+        }
+        attachOrderItems(orders);
+        
+        List<OrderDTO> dtos = orders.stream()
+                .map(this::convertToOrderDTO)
+                .collect(Collectors.toList());
+        String nextCursor = hasMore ? encodeCursor(orders.get(orders.size() - 1)) : null;
+        return new OrderPageDTO(dtos, nextCursor, hasMore);
+    }
+    
+    // Walk all orders page by page (used by NDJSON export); only one page is held in memory at a time
+    public void forEachOrder(int batchSize, Consumer<OrderDTO> consumer) {
+        Order last = null;
+        while (true) {
+            List<Order> orders = fetchPage(last, batchSize);
+            if (orders.isEmpty()) {
+                return;
+            }
+            attachOrderItems(orders);
+            for (Order order : orders) {
+                consumer.accept(convertToOrderDTO(order));
+            }
+            if (orders.size() < batchSize) {
+                return;
+            }
+            last = orders.get(orders.size() - 1);
+        }
+    }
+    
+    private List<Order> fetchPage(Order after, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        if (after == null) {
+            return orderRepository.findFirstPage(page);
+        }
+        return orderRepository.findPageAfter(after.getCreatedAt(), after.getId(), page);
+    }
+    
+    // Cursor = base64url("createdAt|id") of the last order on the previous page
+    private String encodeCursor(Order order) {
+        String raw = order.getCreatedAt() + "|" + order.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private Order decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            Order key = new Order();
+            key.setCreatedAt(LocalDateTime.parse(raw.substring(0, separator)));
+            key.setId(Integer.valueOf(raw.substring(separator + 1)));
+            return key;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+    
     public long getOrderCount() {
         return orderRepository.count();
     }
     
-    // Create new order with PayOS integration
+    // Move an order to a new status if the lifecycle allows it (seller/shipper updates).
+    // The write is a conditional UPDATE ... WHERE status = <status we read>, so concurrent updates
+    // from sellers, shippers and payment webhooks cannot silently overwrite each other.
+    @Transactional
+    public Map<String, Object> updateOrderStatus(Integer orderId, String newStatus) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("orderId", orderId);
+        
+        OrderStatus target = OrderStatus.fromValue(newStatus);
+        if (target == null) {
+            result.put("success", false);
+            result.put("error", "INVALID_STATUS");
+            result.put("message", "Unknown order status: " + newStatus);
+            return result;
+        }
+        
+        Optional<String> currentStatus = orderRepository.findStatusById(orderId);
+        if (currentStatus.isEmpty()) {
+            result.put("success", false);
+            result.put("error", "NOT_FOUND");
+            result.put("message", "Order not found: " + orderId);
+            return result;
+        }
+        
+        for (int attempt = 0; attempt < MAX_TRANSITION_ATTEMPTS; attempt++) {
+            String fromValue = currentStatus.orElse(null);
+            OrderStatus current = OrderStatus.fromValue(fromValue);
+            if (current == target) {
+                // Already in the requested status (e.g. retried request)
+                result.put("success", true);
+                result.put("status", target.getValue());
+                result.put("message", "Order status is already " + target.getValue());
+                return result;
+            }
+            if (current == null || !current.canTransitionTo(target)) {
+                result.put("success", false);
+                result.put("error", "INVALID_TRANSITION");
+                result.put("status", fromValue);
+                result.put("message", "Cannot change order status from " + fromValue + " to " + target.getValue());
+                return result;
+            }
+            // Only cash-on-delivery orders skip payment; PayOS orders are confirmed once the payment is in
+            if (current == OrderStatus.PENDING && target == OrderStatus.CONFIRMED
+                    && orderRepository.existsByIdAndPayosOrderCodeIsNotNull(orderId)) {
+                result.put("success", false);
+                result.put("error", "PAYMENT_REQUIRED");
+                result.put("status", fromValue);
+                result.put("message", "Order " + orderId + " is paid online and has not been paid yet");
+                return result;
+            }
+            if (orderRepository.updateStatusIfCurrent(orderId, fromValue, target.getValue()) == 1) {
+                orderSummaryRepository.updateStatus(orderId, target.getValue(), LocalDateTime.now());
+                result.put("success", true);
+                result.put("previousStatus", fromValue);
+                result.put("status", target.getValue());
+                result.put("message", "Order status updated to: " + target.getValue());
+                return result;
+            }
+            // Lost the race: someone else changed the status, re-read and re-validate
+            currentStatus = orderRepository.findStatusById(orderId);
+        }
+        
+        result.put("success", false);
+        result.put("error", "CONFLICT");
+        result.put("status", currentStatus.orElse(null));
+        result.put("message", "Order status was changed concurrently, please retry");
+        return result;
+    }
+    
+    public Optional<Integer> getShopIdOfOrder(Integer orderId) {
+        return orderRepository.findShopIdById(orderId);
+    }
+    
+    // Buyer confirms receipt of a delivered order (delivered → completed); other buyers' orders read as missing
+    @Transactional
+    public Map<String, Object> completeOrder(Integer orderId, Integer buyerId) {
+        Optional<Integer> owner = orderRepository.findBuyerIdById(orderId);
+        if (owner.isEmpty() || !owner.get().equals(buyerId)) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("orderId", orderId);
+            result.put("success", false);
+            result.put("error", "NOT_FOUND");
+            result.put("message", "Order not found: " + orderId);
+            return result;
+        }
+        return updateOrderStatus(orderId, OrderStatus.COMPLETED.getValue());
+    }
+    
+    // Create new order with PayOS integration. Every order starts PENDING: the status is never taken from the
+    // client, so payment webhooks and the reconciler always find a status they can move on from
     @Transactional
     public Map<String, Object> createOrder(Map<String, Object> deliveryInfo, Map<String, Object> paymentInfo, 
                                           List<Map<String, Object>> cartItems, Integer payosOrderCode, 
-                                          Integer totalAmount, String status) {
+                                          Integer totalAmount) {
         try {
             System.out.println("Creating order with PayOS order code: " + payosOrderCode);
             
+            // Price the cart on the server from current product prices (client prices are not trusted)
+            List<OrderPricing.CartLine> lines = OrderPricing.parseCart(cartItems);
+            if (lines.isEmpty()) {
+                // Would price to the shipping fee alone
+                return orderRejected("EMPTY_CART", "Order has no items");
+            }
+            OrderPricing.PricedCart pricedCart = orderPricing.price(lines);
+            boolean totalDiffers = totalAmount != null
+                    && pricedCart.getTotal().compareTo(BigDecimal.valueOf(totalAmount)) != 0;
+            if (payosOrderCode != null && (totalAmount == null || totalDiffers)) {
+                // The PayOS link was already created for the client's total: it must be what we charge
+                System.out.println("❌ PayOS order " + payosOrderCode + ": client total " + totalAmount
+                        + " differs from server total " + pricedCart.getTotal());
+                Map<String, Object> rejected = orderRejected("TOTAL_MISMATCH",
+                        "Order total " + totalAmount + " does not match the current prices");
+                rejected.put("totalAmount", pricedCart.getTotal());
+                return rejected;
+            }
+            if (totalDiffers) {
+                System.out.println("⚠️ Client total " + totalAmount + " differs from server total " + pricedCart.getTotal());
+            }
+            
             // Create new order
             Order order = new Order();
             order.setBuyerId(1); // Default buyer ID - you might want to get this from authentication
             order.setShopId(1); // Default shop ID - you might want to get this from cart items
             order.setDeliveryAddressId(1); // Default address ID
-            order.setTotalAmount(new BigDecimal(totalAmount));
-            order.setStatus(status);
+            order.setTotalAmount(pricedCart.getTotal());
+            order.setStatus(OrderStatus.PENDING.getValue());
             
             // Set delivery information
             if (deliveryInfo != null) {
@@ -98,6 +303,7 @@ public class OrderService {
                 notes += " | Payment Method: " + paymentInfo.get("method");
             }
             order.setNotes(notes);
+            order.setPayosOrderCode(payosOrderCode);
             
             order.setCreatedAt(LocalDateTime.now());
             
@@ -105,44 +311,17 @@ public class OrderService {
             Order savedOrder = orderRepository.save(order);
             System.out.println("✅ Order created with ID: " + savedOrder.getId());
             
-            // Create order items
-            if (cartItems != null && !cartItems.isEmpty()) {
-                for (Map<String, Object> item : cartItems) {
-                    OrderItem orderItem = new OrderItem();
-                    orderItem.setOrderId(savedOrder.getId());
-                    
-                    // Safe casting with null checks
-                    Integer productId = (Integer) item.get("productId");
-                    Integer quantity = (Integer) item.get("quantity");
-                    Object priceObj = item.get("price");
-                    
-                    if (productId == null || quantity == null || priceObj == null) {
-                        System.err.println("❌ Missing required fields in cart item: " + item);
-                        continue;
-                    }
-                    
-                    // Convert price to BigDecimal safely
-                    BigDecimal unitPrice;
-                    if (priceObj instanceof Integer) {
-                        unitPrice = new BigDecimal((Integer) priceObj);
-                    } else if (priceObj instanceof Double) {
-                        unitPrice = new BigDecimal((Double) priceObj);
-                    } else if (priceObj instanceof String) {
-                        unitPrice = new BigDecimal((String) priceObj);
-                    } else {
-                        System.err.println("❌ Invalid price type: " + priceObj.getClass());
-                        continue;
-                    }
-                    
-                    orderItem.setProductId(productId);
-                    orderItem.setQuantity(quantity);
-                    orderItem.setUnitPrice(unitPrice);
-                    
-                    orderItemRepository.save(orderItem);
-                    System.out.println("✅ Created order item: Product " + productId + ", Qty " + quantity + ", Price " + unitPrice);
-                }
-                System.out.println("✅ Created " + cartItems.size() + " order items");
+            // Create order items (collected first, then inserted in one JDBC batch)
+            List<OrderItem> orderItems = new ArrayList<>(pricedCart.getLines().size());
+            for (OrderPricing.PricedLine line : pricedCart.getLines()) {
+                orderItems.add(new OrderItem(savedOrder.getId(), line.getProductId(), line.getQuantity(),
+                        line.getUnitPrice()));
             }
+            orderItemBatchRepository.insertAll(orderItems);
+            System.out.println("✅ Created " + orderItems.size() + " order items");
+            
+            String thumbnailUrl = pricedCart.getLines().isEmpty() ? null : pricedCart.getLines().get(0).getImageUrl();
+            orderSummaryRepository.save(new OrderSummary(savedOrder, orderItems.size(), thumbnailUrl));
             
             // Return success response
             Map<String, Object> result = new HashMap<>();
@@ -150,7 +329,10 @@ public class OrderService {
             result.put("message", "Order created successfully");
             result.put("orderId", savedOrder.getId());
             result.put("payosOrderCode", payosOrderCode);
-            result.put("status", status);
+            result.put("status", savedOrder.getStatus());
+            result.put("subtotal", pricedCart.getSubtotal());
+            result.put("shippingFee", pricedCart.getShippingFee());
+            result.put("totalAmount", pricedCart.getTotal());
             
             return result;
             
@@ -165,6 +347,14 @@ public class OrderService {
         }
     }
     
+    private static Map<String, Object> orderRejected(String error, String message) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", false);
+        result.put("error", error);
+        result.put("message", message);
+        return result;
+    }
+    
     @Transactional
     public void createTestData() {
         // Check if test data already exists
@@ -204,6 +394,7 @@ public class OrderService {
         // Save order items
         orderItemRepository.save(item1);
         orderItemRepository.save(item2);
+        saveSummary(savedOrder1, List.of(item1, item2));
         
         // Create second test order
         Order order2 = new Order();
@@ -236,13 +427,44 @@ public class OrderService {
         // Save order items
         orderItemRepository.save(item3);
         orderItemRepository.save(item4);
+        saveSummary(savedOrder2, List.of(item3, item4));
         
         System.out.println("✅ Test data created successfully!");
         System.out.println("📊 Created " + orderRepository.count() + " orders");
     }
     
+    // Write the order_summaries row in the same transaction as the order itself
+    private void saveSummary(Order order, List<OrderItem> items) {
+        String thumbnailUrl = null;
+        if (!items.isEmpty()) {
+            thumbnailUrl = productRepository.findById(items.get(0).getProductId())
+                    .map(Product::getImageUrl)
+                    .orElse(null);
+        }
+        orderSummaryRepository.save(new OrderSummary(order, items.size(), thumbnailUrl));
+    }
+    
+    // Load order items of many orders with one IN query per chunk and group them in memory.
+    // SQL Server allows at most 2100 parameters per statement, so ids are sent in chunks.
+    private void attachOrderItems(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<OrderItem>> itemsByOrderId = new HashMap<>();
+        List<Integer> orderIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+        for (int from = 0; from < orderIds.size(); from += ORDER_ID_BATCH_SIZE) {
+            List<Integer> chunk = orderIds.subList(from, Math.min(from + ORDER_ID_BATCH_SIZE, orderIds.size()));
+            for (OrderItem item : orderItemRepository.findByOrderIdIn(chunk)) {
+                itemsByOrderId.computeIfAbsent(item.getOrderId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+        for (Order order : orders) {
+            order.setOrderItems(itemsByOrderId.getOrDefault(order.getId(), new ArrayList<>()));
+        }
+    }
+    
     // Convert Order entity to OrderDTO
-    private OrderDTO convertToOrderDTO(Order order) {
+    public OrderDTO convertToOrderDTO(Order order) {
         OrderDTO dto = new OrderDTO();
         dto.setId(order.getId());
         dto.setBuyerId(order.getBuyerId());
@@ -293,37 +515,57 @@ public class OrderService {
             System.out.println("- Transaction ID: " + transactionId);
             System.out.println("- Timestamp: " + timestamp);
             
-            // Find order by orderCode (assuming orderCode is stored in notes or as a separate field)
-            // For now, we'll use a simple approach - you might need to add a payosOrderCode field to Order entity
-            List<Order> orders = orderRepository.findAll();
-            Optional<Order> orderOpt = orders.stream()
-                .filter(order -> order.getNotes() != null && order.getNotes().contains("PayOS:" + orderCode))
-                .findFirst();
+            // Find order by the indexed payos_order_code column
+            Optional<Order> orderOpt = orderRepository.findByPayosOrderCode(orderCode);
             
             if (orderOpt.isPresent()) {
                 Order order = orderOpt.get();
                 
-                // Update order status based on payment status
+                // Map payment status to order status
+                OrderStatus target = null;
                 if ("PAID".equals(status)) {
-                    order.setStatus("paid");
-                    System.out.println("✅ Order " + order.getId() + " marked as PAID");
+                    target = OrderStatus.PAID;
                 } else if ("CANCELLED".equals(status)) {
-                    order.setStatus("cancelled");
-                    System.out.println("❌ Order " + order.getId() + " marked as CANCELLED");
+                    target = OrderStatus.CANCELLED;
                 } else if ("EXPIRED".equals(status)) {
-                    order.setStatus("expired");
-                    System.out.println("⏰ Order " + order.getId() + " marked as EXPIRED");
+                    target = OrderStatus.EXPIRED;
                 }
                 
-                // Update notes with payment information
-                String updatedNotes = order.getNotes() + 
-                    " | Payment: " + status + 
+                // Payment information appended to notes
+                String noteSuffix = " | Payment: " + status + 
                     " | Transaction: " + transactionId + 
                     " | Time: " + timestamp;
-                order.setNotes(updatedNotes);
                 
-                orderRepository.save(order);
-                return true;
+                // An underpaid (or unverifiable) payment never marks the order paid; it is kept in the notes
+                if (target == OrderStatus.PAID && !isFullAmount(amount, order.getTotalAmount())) {
+                    orderRepository.appendNotes(order.getId(), noteSuffix
+                            + " | Amount " + amount + " does not match total " + order.getTotalAmount());
+                    System.err.println("⚠️ Order " + order.getId() + " payment of " + amount
+                            + " does not match total " + order.getTotalAmount() + ", not marked paid");
+                    return true;
+                }
+                
+                // Single-statement conditional updates: a concurrent seller/shipper change is never overwritten
+                String currentStatus = order.getStatus();
+                for (int attempt = 0; attempt < MAX_TRANSITION_ATTEMPTS; attempt++) {
+                    OrderStatus current = OrderStatus.fromValue(currentStatus);
+                    if (target == null || current == null || !current.canTransitionTo(target)) {
+                        // Not a valid transition from the current status (e.g. late webhook): only record the payment info
+                        orderRepository.appendNotes(order.getId(), noteSuffix);
+                        System.out.println("ℹ️ Order " + order.getId() + " stays " + currentStatus + " (payment " + status + ")");
+                        return true;
+                    }
+                    if (orderRepository.updateStatusAndAppendNotesIfCurrent(order.getId(), currentStatus,
+                            target.getValue(), noteSuffix) == 1) {
+                        orderSummaryRepository.updateStatus(order.getId(), target.getValue(), LocalDateTime.now());
+                        System.out.println("✅ Order " + order.getId() + " marked as " + target.getValue().toUpperCase());
+                        return true;
+                    }
+                    // Status changed since we read it: re-read and re-check the transition
+                    currentStatus = orderRepository.findStatusById(order.getId()).orElse(null);
+                }
+                System.err.println("⚠️ Order " + order.getId() + " kept changing status, payment " + status + " not applied");
+                return false;
             } else {
                 System.out.println("⚠️ Order not found for PayOS order code: " + orderCode);
                 return false;
@@ -335,4 +577,8 @@ public class OrderService {
             return false;
         }
     }
-}
\ No newline at end of file
+    
+    private static boolean isFullAmount(Integer amount, BigDecimal total) {
+        return amount != null && total != null && total.compareTo(BigDecimal.valueOf(amount)) == 0;
+    }
+}
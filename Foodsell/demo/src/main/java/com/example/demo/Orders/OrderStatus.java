@@ -0,0 +1,81 @@
+package com.example.demo.Orders;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+// Order lifecycle: pending → paid → confirmed → preparing → shipping → delivered → completed
+// (pending can be confirmed directly for cash on delivery, see OrderService.updateOrderStatus;
+// the buyer completes a delivered order; cancelled/expired are terminal)
+public enum OrderStatus {
+    // Older checkout builds stored "pending_payment" for the same state
+    PENDING("pending", "pending_payment"),
+    PAID("paid"),
+    CONFIRMED("confirmed"),
+    PREPARING("preparing"),
+    SHIPPING("shipping"),
+    DELIVERED("delivered"),
+    COMPLETED("completed"),
+    CANCELLED("cancelled"),
+    EXPIRED("expired");
+
+    private final String value;
+    private final String[] aliases;
+
+    OrderStatus(String value, String... aliases) {
+        this.value = value;
+        this.aliases = aliases;
+    }
+
+    // Value stored in orders.status
+    public String getValue() {
+        return value;
+    }
+
+    // Every orders.status value meaning this status: the current one plus older spellings still in the table
+    public List<String> getStoredValues() {
+        List<String> values = new ArrayList<>(List.of(aliases));
+        values.add(0, value);
+        return values;
+    }
+
+    public Set<OrderStatus> nextStatuses() {
+        switch (this) {
+            case PENDING:
+                return EnumSet.of(PAID, CONFIRMED, CANCELLED, EXPIRED);
+            case PAID:
+                return EnumSet.of(CONFIRMED, CANCELLED);
+            case CONFIRMED:
+                return EnumSet.of(PREPARING, SHIPPING, CANCELLED);
+            case PREPARING:
+                return EnumSet.of(SHIPPING, CANCELLED);
+            case SHIPPING:
+                return EnumSet.of(DELIVERED);
+            case DELIVERED:
+                return EnumSet.of(COMPLETED);
+            default:
+                return EnumSet.noneOf(OrderStatus.class);
+        }
+    }
+
+    public boolean canTransitionTo(OrderStatus target) {
+        return nextStatuses().contains(target);
+    }
+
+    // Returns null for unknown values
+    public static OrderStatus fromValue(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        for (OrderStatus status : values()) {
+            for (String stored : status.getStoredValues()) {
+                if (stored.equalsIgnoreCase(trimmed)) {
+                    return status;
+                }
+            }
+        }
+        return null;
+    }
+}
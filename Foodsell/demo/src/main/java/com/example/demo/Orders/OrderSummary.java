@@ -0,0 +1,57 @@
+package com.example.demo.Orders;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Read model for order history lists: one row per order, kept up to date on create and status change
+// (see create_order_summaries.sql for the backfill of existing orders)
+@Entity
+@Table(name = "order_summaries", indexes = {
+    @Index(name = "IX_order_summaries_buyer_created", columnList = "buyer_id, created_at DESC, order_id DESC")
+})
+@Data
+@NoArgsConstructor
+public class OrderSummary {
+    @Id
+    @Column(name = "order_id")
+    private Integer orderId;
+
+    @Column(name = "buyer_id", nullable = false)
+    private Integer buyerId;
+
+    @Column(name = "shop_id", nullable = false)
+    private Integer shopId;
+
+    @Column(name = "status", nullable = false)
+    private String status;
+
+    @Column(name = "total_amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "item_count", nullable = false)
+    private Integer itemCount;
+
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public OrderSummary(Order order, int itemCount, String thumbnailUrl) {
+        this.orderId = order.getId();
+        this.buyerId = order.getBuyerId();
+        this.shopId = order.getShopId();
+        this.status = order.getStatus();
+        this.totalAmount = order.getTotalAmount();
+        this.itemCount = itemCount;
+        this.thumbnailUrl = thumbnailUrl;
+        this.createdAt = order.getCreatedAt();
+        this.updatedAt = order.getCreatedAt();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.Orders;
+
+import com.example.demo.dto.OrderSummaryDTO;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, Integer> {
+    
+    // Order history of a buyer, newest first - one range scan on IX_order_summaries_buyer_created
+    @Query("SELECT new com.example.demo.dto.OrderSummaryDTO(" +
+           "s.orderId, s.shopId, s.totalAmount, s.status, s.itemCount, s.thumbnailUrl, s.createdAt) " +
+           "FROM OrderSummary s WHERE s.buyerId = :buyerId " +
+           "ORDER BY s.createdAt DESC, s.orderId DESC")
+    List<OrderSummaryDTO> findSummariesByBuyerId(@Param("buyerId") Integer buyerId);
+    
+    // Keep the summary status in sync with orders.status
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE OrderSummary s SET s.status = :status, s.updatedAt = :updatedAt WHERE s.orderId = :orderId")
+    int updateStatus(@Param("orderId") Integer orderId, @Param("status") String status,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -0,0 +1,90 @@
+package com.example.demo.Orders;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Backfill payos_order_code for orders created before the column existed (code was only kept in notes as "PayOS:<code>")
+@Component
+public class PayOSOrderCodeBackfill implements ApplicationRunner {
+    private static final Pattern PAYOS_CODE = Pattern.compile("^PayOS:(\\d+)");
+    private static final int BATCH_SIZE = 500;
+
+    private final OrderRepository orderRepository;
+
+    @Value("${payos.order-code-backfill.enabled:true}")
+    private boolean enabled;
+
+    public PayOSOrderCodeBackfill(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int updated = backfill();
+            if (updated > 0) {
+                System.out.println("✅ Backfilled payos_order_code for " + updated + " orders");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ PayOS order code backfill failed: " + e.getMessage());
+        }
+    }
+
+    // Walk legacy orders in id order, one batch per transaction, so the job can be re-run safely
+    public int backfill() {
+        int updated = 0;
+        Integer lastId = 0;
+        while (true) {
+            List<Order> batch = orderRepository.findOrdersMissingPayosOrderCode(lastId, PageRequest.of(0, BATCH_SIZE));
+            if (batch.isEmpty()) {
+                return updated;
+            }
+
+            List<Order> changed = new ArrayList<>();
+            Set<Integer> codesInBatch = new HashSet<>();
+            for (Order order : batch) {
+                Integer code = parseOrderCode(order.getNotes());
+                // Keep the column unique: skip codes already taken by another order
+                if (code != null && codesInBatch.add(code) && !orderRepository.existsByPayosOrderCode(code)) {
+                    order.setPayosOrderCode(code);
+                    changed.add(order);
+                }
+            }
+            orderRepository.saveAll(changed);
+            updated += changed.size();
+
+            if (batch.size() < BATCH_SIZE) {
+                return updated;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    static Integer parseOrderCode(String notes) {
+        if (notes == null) {
+            return null;
+        }
+        Matcher matcher = PAYOS_CODE.matcher(notes);
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(matcher.group(1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.PayOS;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+
+// Circuit breaker for calls to the PayOS API.
+// CLOSED: calls go through; after failure-threshold consecutive failures (timeouts, connection errors, 5xx)
+// it OPENs and calls fail fast for open-duration-ms. Then one trial call is let through (HALF_OPEN):
+// success closes the circuit, failure opens it again.
+@Component
+public class PayOSCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openDurationMs;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+    private boolean trialInFlight = false;
+    private long trialStartedAt = 0;
+    private long rejectedCalls = 0;
+
+    @Autowired
+    public PayOSCircuitBreaker(@Value("${payos.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                               @Value("${payos.circuit-breaker.open-duration-ms:30000}") long openDurationMs) {
+        this(failureThreshold, openDurationMs, Clock.systemUTC());
+    }
+
+    PayOSCircuitBreaker(int failureThreshold, long openDurationMs, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+        this.clock = clock;
+    }
+
+    // true if a call may go to PayOS now
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && clock.millis() - openedAt >= openDurationMs) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        // A trial whose outcome never came back (e.g. cancelled) does not block the circuit forever
+        if (state == State.HALF_OPEN && (!trialInFlight || clock.millis() - trialStartedAt >= openDurationMs)) {
+            trialInFlight = true;
+            trialStartedAt = clock.millis();
+            return true;
+        }
+        rejectedCalls++;
+        return false;
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        if (state != State.CLOSED) {
+            System.out.println("✅ PayOS circuit closed");
+        }
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                System.err.println("⚠️ PayOS circuit opened after " + consecutiveFailures + " failures");
+            }
+            state = State.OPEN;
+            openedAt = clock.millis();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("state", state.name());
+        metrics.put("consecutiveFailures", consecutiveFailures);
+        metrics.put("rejectedCalls", rejectedCalls);
+        return metrics;
+    }
+}
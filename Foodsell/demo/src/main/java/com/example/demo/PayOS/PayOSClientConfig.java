@@ -0,0 +1,57 @@
+package com.example.demo.PayOS;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// HTTP client for the PayOS API: pooled keep-alive connections on Reactor Netty with bounded connect,
+// read and write timeouts, so a slow PayOS endpoint can never hold a request thread indefinitely
+@Configuration
+public class PayOSClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider payosConnectionProvider(
+            @Value("${payos.http.max-connections:50}") int maxConnections,
+            @Value("${payos.http.pending-acquire-timeout-ms:2000}") long pendingAcquireTimeoutMs,
+            @Value("${payos.http.max-idle-time-ms:30000}") long maxIdleTimeMs) {
+        return ConnectionProvider.builder("payos")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .maxLifeTime(Duration.ofMinutes(5))
+                .evictInBackground(Duration.ofSeconds(30))
+                .build();
+    }
+
+    @Bean
+    public WebClient payosWebClient(ConnectionProvider payosConnectionProvider,
+                                    @Value("${payos.base-url}") String baseUrl,
+                                    @Value("${payos.client-id}") String clientId,
+                                    @Value("${payos.api-key}") String apiKey,
+                                    @Value("${payos.http.connect-timeout-ms:2000}") int connectTimeoutMs,
+                                    @Value("${payos.http.read-timeout-ms:5000}") long readTimeoutMs) {
+        HttpClient httpClient = HttpClient.create(payosConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(Duration.ofMillis(readTimeoutMs))
+                .doOnConnected(connection -> connection
+                        .addHandlerLast(new ReadTimeoutHandler(readTimeoutMs, TimeUnit.MILLISECONDS))
+                        .addHandlerLast(new WriteTimeoutHandler(readTimeoutMs, TimeUnit.MILLISECONDS)));
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .defaultHeader("x-client-id", clientId)
+                .defaultHeader("x-api-key", apiKey)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
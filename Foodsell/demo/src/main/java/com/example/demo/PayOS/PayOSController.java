@@ -1,11 +1,13 @@
 package com.example.demo.PayOS;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-import com.example.demo.Orders.OrderService;
 import com.example.demo.Orders.OrderRepository;
 import com.example.demo.Orders.Order;
+import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -19,40 +21,43 @@ public class PayOSController {
     private PayOSService payOSService;
     
     @Autowired
-    private OrderService orderService;
+    private OrderRepository orderRepository;
     
     @Autowired
-    private OrderRepository orderRepository;
+    private PayOSWebhookInbox webhookInbox;
+    
+    @Autowired
+    private PayOSWebhookProcessor webhookProcessor;
+    
+    @Autowired
+    private PendingPaymentReconciler paymentReconciler;
+    
+    // true: verify, enqueue and ack immediately; order updates are applied by PayOSWebhookProcessor
+    @Value("${payos.webhook.async-enabled:false}")
+    private boolean asyncWebhook;
 
-    // Tạo payment link
+    // Tạo payment link (non-blocking: the request thread is released while PayOS answers)
     @PostMapping("/create-payment")
-    public ResponseEntity<Map<String, Object>> createPayment(@RequestBody Map<String, Object> paymentData) {
-        Map<String, Object> result = payOSService.createPaymentLink(paymentData);
-        if ((Boolean) result.get("success")) {
-            return ResponseEntity.ok(result);
-        } else {
-            return ResponseEntity.badRequest().body(result);
-        }
+    public Mono<ResponseEntity<Map<String, Object>>> createPayment(@RequestBody Map<String, Object> paymentData) {
+        return payOSService.createPaymentLink(paymentData).map(this::toResponse);
     }
 
     // Lấy thông tin payment
     @GetMapping("/payment/{orderCode}")
-    public ResponseEntity<Map<String, Object>> getPaymentInfo(@PathVariable Integer orderCode) {
-        Map<String, Object> result = payOSService.getPaymentInfo(orderCode);
-        if ((Boolean) result.get("success")) {
-            return ResponseEntity.ok(result);
-        } else {
-            return ResponseEntity.badRequest().body(result);
-        }
+    public Mono<ResponseEntity<Map<String, Object>>> getPaymentInfo(@PathVariable Integer orderCode) {
+        return payOSService.getPaymentInfo(orderCode).map(this::toResponse);
     }
 
     // Hủy payment
     @PostMapping("/cancel-payment")
-    public ResponseEntity<Map<String, Object>> cancelPayment(@RequestBody Map<String, Object> cancelData) {
+    public Mono<ResponseEntity<Map<String, Object>>> cancelPayment(@RequestBody Map<String, Object> cancelData) {
         Integer orderCode = (Integer) cancelData.get("orderCode");
         String reason = (String) cancelData.getOrDefault("cancellationReason", "User cancelled");
 
-        Map<String, Object> result = payOSService.cancelPayment(orderCode, reason);
+        return payOSService.cancelPayment(orderCode, reason).map(this::toResponse);
+    }
+
+    private ResponseEntity<Map<String, Object>> toResponse(Map<String, Object> result) {
         if ((Boolean) result.get("success")) {
             return ResponseEntity.ok(result);
         } else {
@@ -64,6 +69,9 @@ public class PayOSController {
     @PostMapping("/webhook")
     @SuppressWarnings("unchecked")
     public ResponseEntity<Map<String, Object>> handleWebhook(@RequestBody Map<String, Object> webhookData) {
+        if (asyncWebhook) {
+            return acceptWebhook(webhookData);
+        }
         try {
             System.out.println("=== PayOS Webhook Received ===");
             System.out.println("Raw webhook data: " + webhookData);
@@ -119,11 +127,15 @@ public class PayOSController {
                 e.printStackTrace();
             }
 
-            // Update order status in database
+            // Update order status in database (once per orderCode + transactionId)
+            boolean duplicate = false;
             if (orderCode != null && status != null) {
-                boolean updateSuccess = orderService.processPaymentResult(orderCode, status, amount, transactionId, timestamp);
+                PayOSWebhookInbox.Outcome outcome = webhookInbox.receive(orderCode, status, amount, transactionId, timestamp);
+                duplicate = outcome == PayOSWebhookInbox.Outcome.DUPLICATE;
                 
-                if (!updateSuccess) {
+                if (duplicate) {
+                    System.out.println("↩️ Duplicate webhook for order code " + orderCode + ", already processed");
+                } else if (outcome == PayOSWebhookInbox.Outcome.ORDER_NOT_FOUND) {
                     System.err.println("⚠️ Failed to update order status for order code: " + orderCode);
                 } else {
                     System.out.println("✅ Order status updated successfully");
@@ -134,7 +146,8 @@ public class PayOSController {
 
             Map<String, Object> successResponse = new HashMap<>();
             successResponse.put("success", true);
-            successResponse.put("message", "Webhook processed successfully");
+            successResponse.put("message", duplicate ? "Webhook already processed" : "Webhook processed successfully");
+            successResponse.put("duplicate", duplicate);
             successResponse.put("orderCode", orderCode);
             successResponse.put("status", status);
 
@@ -154,6 +167,82 @@ public class PayOSController {
         }
     }
 
+    // Async webhook mode: verify signature, durably enqueue, ack without waiting for the order update
+    @SuppressWarnings("unchecked")
+    private ResponseEntity<Map<String, Object>> acceptWebhook(Map<String, Object> webhookData) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Map<String, Object> data = (Map<String, Object>) webhookData.get("data");
+            String signature = (String) webhookData.get("signature");
+            
+            if (data == null) {
+                response.put("success", false);
+                response.put("message", "Invalid webhook format: missing 'data' field");
+                return ResponseEntity.badRequest().body(response);
+            }
+            // The order is updated after we ack, so an unsigned or badly signed payload is rejected here
+            if (signature == null || !payOSService.verifyChecksum(data, signature)) {
+                response.put("success", false);
+                response.put("message", "Invalid signature");
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            Integer orderCode = (Integer) data.get("orderCode");
+            String status = (String) data.get("status");
+            if (orderCode == null || status == null) {
+                response.put("success", false);
+                response.put("message", "Missing required fields (orderCode or status)");
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            PayOSWebhookInbox.Outcome outcome = webhookInbox.accept(orderCode, status,
+                    (Integer) data.get("amount"), (String) data.get("transactionId"), (String) data.get("timestamp"));
+            boolean duplicate = outcome == PayOSWebhookInbox.Outcome.DUPLICATE;
+            
+            response.put("success", true);
+            response.put("message", duplicate ? "Webhook already processed" : "Webhook accepted");
+            response.put("duplicate", duplicate);
+            response.put("orderCode", orderCode);
+            response.put("status", status);
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            System.err.println("❌ Webhook enqueue error: " + e.getMessage());
+            response.put("success", false);
+            response.put("message", "Webhook processing failed");
+            response.put("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    // Webhook queue metrics (queue depth, workers, processed/failed/rejected counters)
+    @GetMapping("/webhook/metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getWebhookMetrics() {
+        return ResponseEntity.ok(webhookProcessor.getMetrics());
+    }
+
+    // PayOS HTTP client circuit breaker state
+    @GetMapping("/client/metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getClientMetrics() {
+        return ResponseEntity.ok(payOSService.getCircuitBreakerMetrics());
+    }
+
+    // Payment-status cache counters (hits, misses, webhook updates, invalidations)
+    @GetMapping("/status-cache/metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getStatusCacheMetrics() {
+        return ResponseEntity.ok(payOSService.getStatusCacheMetrics());
+    }
+
+    // Stale pending order reconciler counters (checked, applied, expired, skipped)
+    @GetMapping("/reconcile/metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getReconcileMetrics() {
+        return ResponseEntity.ok(paymentReconciler.getMetrics());
+    }
+
     // Health check
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> healthCheck() {
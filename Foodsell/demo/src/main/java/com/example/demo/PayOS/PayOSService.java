@@ -2,280 +2,250 @@ package com.example.demo.PayOS;
 
 import com.example.demo.Orders.OrderRepository;
 import com.example.demo.Orders.Order;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.example.demo.Orders.OrderStatus;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class PayOSService {
 
-    @Value("${payos.client-id}")
-    private String clientId;
-    
-    @Value("${payos.api-key}")
-    private String apiKey;
-    
-    @Value("${payos.checksum-key}")
-    private String checksumKey;
-    
-    @Value("${payos.base-url}")
-    private String baseUrl;
-
-    @Autowired
-    private OrderRepository orderRepository;
-
-    private final RestTemplate restTemplate;
-
-    public PayOSService() {
-        this.restTemplate = new RestTemplate();
+    private final PayOSSigner signer;
+    private final WebClient webClient;
+    private final PayOSCircuitBreaker circuitBreaker;
+    private final PaymentStatusCache statusCache;
+    private final OrderRepository orderRepository;
+    private final Duration createDeadline;
+    private final Duration queryDeadline;
+
+    public PayOSService(WebClient payosWebClient, PayOSCircuitBreaker circuitBreaker, PaymentStatusCache statusCache,
+                        OrderRepository orderRepository, PayOSSigner signer,
+                        @Value("${payos.http.create-deadline-ms:8000}") long createDeadlineMs,
+                        @Value("${payos.http.query-deadline-ms:3000}") long queryDeadlineMs) {
+        this.webClient = payosWebClient;
+        this.circuitBreaker = circuitBreaker;
+        this.statusCache = statusCache;
+        this.orderRepository = orderRepository;
+        this.signer = signer;
+        this.createDeadline = Duration.ofMillis(createDeadlineMs);
+        this.queryDeadline = Duration.ofMillis(queryDeadlineMs);
     }
 
     // Tạo payment link
-    public Map<String, Object> createPaymentLink(Map<String, Object> paymentData) {
+    public Mono<Map<String, Object>> createPaymentLink(Map<String, Object> paymentData) {
+        System.out.println("=== PAYOS CREATE PAYMENT LINK ===");
+        System.out.println("Input payment data: " + paymentData);
         try {
-            System.out.println("=== PAYOS CREATE PAYMENT LINK ===");
-            System.out.println("Input payment data: " + paymentData);
-            System.out.println("Client ID: " + clientId);
-            System.out.println("API Key: " + apiKey);
-            System.out.println("Base URL: " + baseUrl);
-            
             // Tạo checksum
             String checksum = createChecksum(paymentData);
             paymentData.put("signature", checksum);
-            
-            System.out.println("Final payment data with signature: " + paymentData);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("x-client-id", clientId);
-            headers.set("x-api-key", apiKey);
-            
-            System.out.println("Request headers: " + headers);
-
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(paymentData, headers);
-            
-            String apiUrl = baseUrl + "/v2/payment-requests";
-            System.out.println("API URL: " + apiUrl);
-
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    apiUrl,
-                    HttpMethod.POST,
-                    request,
-                    Map.class
-            );
-            
-            System.out.println("Response status: " + response.getStatusCode());
-            System.out.println("Response body: " + response.getBody());
-
-            Map<String, Object> result = new HashMap<>();
-            Map responseBody = response.getBody();
-            if ("00".equals(responseBody.get("code"))) {
-                result.put("success", true);
-                result.put("data", responseBody.get("data"));
-                System.out.println("✅ Payment link created successfully");
-            } else {
-                result.put("success", false);
-                result.put("message", responseBody.get("desc"));
-                System.out.println("❌ Payment creation failed: " + responseBody.get("desc"));
-            }
-            return result;
         } catch (Exception e) {
             System.err.println("❌ Error creating payment link: " + e.getMessage());
-            e.printStackTrace();
-            
-            Map<String, Object> errorResult = new HashMap<>();
-            errorResult.put("success", false);
-            errorResult.put("message", "Error creating payment: " + e.getMessage());
-            return errorResult;
+            return Mono.just(errorResult("Error creating payment: " + e.getMessage()));
         }
+
+        WebClient.RequestHeadersSpec<?> request = webClient.post()
+                .uri("/v2/payment-requests")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(paymentData);
+
+        return call(request, createDeadline)
+                .map(body -> toResult(body, "Payment link created"))
+                .doOnNext(result -> invalidateIfSuccessful(paymentData.get("orderCode"), result))
+                .onErrorResume(e -> {
+                    System.err.println("❌ Error creating payment link: " + describe(e));
+                    return Mono.just(errorResult("Error creating payment: " + describe(e)));
+                });
     }
 
-    // Lấy thông tin payment
-    public Map<String, Object> getPaymentInfo(Integer orderCode) {
-        try {
-            System.out.println("=== GET PAYMENT INFO ===");
-            System.out.println("Order Code: " + orderCode);
-            System.out.println("Client ID: " + clientId);
-            System.out.println("API Key: " + apiKey);
-            System.out.println("Base URL: " + baseUrl);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("x-client-id", clientId);
-            headers.set("x-api-key", apiKey);
+    // Lấy thông tin payment: served from the short-TTL status cache, only misses go to PayOS
+    public Mono<Map<String, Object>> getPaymentInfo(Integer orderCode) {
+        return statusCache.get(orderCode, () -> fetchPaymentInfo(orderCode));
+    }
 
-            HttpEntity<String> request = new HttpEntity<>(headers);
+    // PayOS lỗi / quá hạn / circuit mở -> đọc trạng thái đơn hàng trong database
+    private Mono<Map<String, Object>> fetchPaymentInfo(Integer orderCode) {
+        System.out.println("=== GET PAYMENT INFO ===");
+        System.out.println("Order Code: " + orderCode);
 
-            String apiUrl = baseUrl + "/v2/payment-requests/" + orderCode;
-            System.out.println("API URL: " + apiUrl);
+        return call(webClient.get().uri("/v2/payment-requests/{orderCode}", orderCode), queryDeadline)
+                .map(body -> toResult(body, "Payment info retrieved"))
+                .onErrorResume(e -> {
+                    System.err.println("❌ Error getting payment info from PayOS: " + describe(e));
+                    // JPA is blocking: run the fallback off the Netty event loop
+                    return Mono.fromCallable(() -> databaseFallback(orderCode, e))
+                            .subscribeOn(Schedulers.boundedElastic());
+                });
+    }
 
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    apiUrl,
-                    HttpMethod.GET,
-                    request,
-                    Map.class
-            );
+    // Hủy payment
+    public Mono<Map<String, Object>> cancelPayment(Integer orderCode, String reason) {
+        Map<String, Object> cancelData = new HashMap<>();
+        cancelData.put("orderCode", orderCode);
+        cancelData.put("cancellationReason", reason);
+
+        WebClient.RequestHeadersSpec<?> request = webClient.post()
+                .uri("/v2/payment-requests/{orderCode}/cancel", orderCode)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(cancelData);
+
+        return call(request, queryDeadline)
+                .map(body -> toResult(body, "Payment cancelled"))
+                .doOnNext(result -> invalidateIfSuccessful(orderCode, result))
+                .onErrorResume(e -> Mono.just(errorResult("Error canceling payment: " + describe(e))));
+    }
 
-            System.out.println("Response status: " + response.getStatusCode());
-            System.out.println("Response body: " + response.getBody());
+    public Map<String, Object> getStatusCacheMetrics() {
+        return statusCache.getMetrics();
+    }
 
-            Map<String, Object> result = new HashMap<>();
-            Map responseBody = response.getBody();
-            if ("00".equals(responseBody.get("code"))) {
-                result.put("success", true);
-                result.put("data", responseBody.get("data"));
-                System.out.println("✅ Payment info retrieved successfully");
-            } else {
-                result.put("success", false);
-                result.put("message", responseBody.get("desc"));
-                System.out.println("❌ Failed to get payment info: " + responseBody.get("desc"));
-            }
-            return result;
-        } catch (Exception e) {
-            System.err.println("❌ Error getting payment info from PayOS: " + e.getMessage());
-            e.printStackTrace();
-            
-            // Fallback: Check order status in database
-            System.out.println("=== FALLBACK: CHECKING ORDER IN DATABASE ===");
-            try {
-                Order order = orderRepository.findByNotesContaining("PayOS:" + orderCode).stream().findFirst().orElse(null);
-                if (order != null) {
-                    System.out.println("Found order in database: " + order.getId());
-                    System.out.println("Order status: " + order.getStatus());
-                    
-                    Map<String, Object> fallbackResult = new HashMap<>();
-                    fallbackResult.put("success", true);
-                    
-                    Map<String, Object> paymentData = new HashMap<>();
-                    paymentData.put("orderCode", orderCode);
-                    paymentData.put("status", order.getStatus().equals("paid") ? "PAID" : "PENDING");
-                    paymentData.put("amount", order.getTotalAmount().intValue());
-                    
-                    fallbackResult.put("data", paymentData);
-                    System.out.println("✅ Using fallback data from database");
-                    return fallbackResult;
-                } else {
-                    System.out.println("❌ No order found in database for order code: " + orderCode);
-                }
-            } catch (Exception dbError) {
-                System.err.println("❌ Database fallback error: " + dbError.getMessage());
-            }
-            
-            Map<String, Object> errorResult = new HashMap<>();
-            errorResult.put("success", false);
-            errorResult.put("message", "Error getting payment info: " + e.getMessage());
-            return errorResult;
+    // The payment changed on PayOS: the cached status for this order code is stale
+    private void invalidateIfSuccessful(Object orderCode, Map<String, Object> result) {
+        if (orderCode instanceof Integer && Boolean.TRUE.equals(result.get("success"))) {
+            statusCache.invalidate((Integer) orderCode);
         }
     }
 
-    // Hủy payment
-    public Map<String, Object> cancelPayment(Integer orderCode, String reason) {
-        try {
-            Map<String, Object> cancelData = new HashMap<>();
-            cancelData.put("orderCode", orderCode);
-            cancelData.put("cancellationReason", reason);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("x-client-id", clientId);
-            headers.set("x-api-key", apiKey);
+    public Map<String, Object> getCircuitBreakerMetrics() {
+        return circuitBreaker.getMetrics();
+    }
 
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(cancelData, headers);
+    // One PayOS call: fails fast while the circuit is open, bounded by a per-call deadline.
+    // Timeouts, connection errors and 5xx count as failures; any other answer proves PayOS is reachable.
+    private Mono<Map<String, Object>> call(WebClient.RequestHeadersSpec<?> request, Duration deadline) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                return Mono.error(new PayOSUnavailableException("PayOS circuit is open"));
+            }
+            return request.retrieve()
+                    .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                    .timeout(deadline)
+                    .doOnSuccess(body -> circuitBreaker.recordSuccess())
+                    .doOnError(e -> {
+                        if (e instanceof WebClientResponseException
+                                && !((WebClientResponseException) e).getStatusCode().is5xxServerError()) {
+                            circuitBreaker.recordSuccess();
+                        } else {
+                            circuitBreaker.recordFailure();
+                        }
+                    });
+        });
+    }
 
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    baseUrl + "/v2/payment-requests/" + orderCode + "/cancel",
-                    HttpMethod.POST,
-                    request,
-                    Map.class
-            );
+    private Map<String, Object> toResult(Map<String, Object> responseBody, String operation) {
+        Map<String, Object> result = new HashMap<>();
+        if (responseBody != null && "00".equals(responseBody.get("code"))) {
+            result.put("success", true);
+            result.put("data", responseBody.get("data"));
+            System.out.println("✅ " + operation + " successfully");
+        } else {
+            Object desc = responseBody != null ? responseBody.get("desc") : "Empty response from PayOS";
+            result.put("success", false);
+            result.put("code", responseBody != null ? responseBody.get("code") : null);
+            result.put("message", desc);
+            System.out.println("❌ " + operation + " failed: " + desc);
+        }
+        return result;
+    }
 
-            Map<String, Object> result = new HashMap<>();
-            Map responseBody = response.getBody();
-            if ("00".equals(responseBody.get("code"))) {
-                result.put("success", true);
-                result.put("data", responseBody.get("data"));
+    // Fallback: Check order status in database
+    private Map<String, Object> databaseFallback(Integer orderCode, Throwable cause) {
+        System.out.println("=== FALLBACK: CHECKING ORDER IN DATABASE ===");
+        try {
+            Order order = orderRepository.findByPayosOrderCode(orderCode).orElse(null);
+            if (order != null) {
+                System.out.println("Found order in database: " + order.getId());
+                System.out.println("Order status: " + order.getStatus());
+                
+                Map<String, Object> fallbackResult = new HashMap<>();
+                fallbackResult.put("success", true);
+                
+                Map<String, Object> paymentData = new HashMap<>();
+                paymentData.put("orderCode", orderCode);
+                paymentData.put("status", paymentStatusOf(order.getStatus()));
+                paymentData.put("amount", order.getTotalAmount().intValue());
+                
+                fallbackResult.put("data", paymentData);
+                fallbackResult.put("fallback", true);
+                System.out.println("✅ Using fallback data from database");
+                return fallbackResult;
             } else {
-                result.put("success", false);
-                result.put("message", responseBody.get("desc"));
+                System.out.println("❌ No order found in database for order code: " + orderCode);
             }
-            return result;
-        } catch (Exception e) {
-            Map<String, Object> errorResult = new HashMap<>();
-            errorResult.put("success", false);
-            errorResult.put("message", "Error canceling payment: " + e.getMessage());
-            return errorResult;
+        } catch (Exception dbError) {
+            System.err.println("❌ Database fallback error: " + dbError.getMessage());
         }
+        // Still a fallback: PayOS was not reached, so this says nothing about the payment link
+        Map<String, Object> errorResult = errorResult("Error getting payment info: " + describe(cause));
+        errorResult.put("fallback", true);
+        return errorResult;
     }
 
-    // Tạo checksum theo format PayOS (giống mã mẫu)
-    private String createChecksum(Map<String, Object> data) throws NoSuchAlgorithmException, InvalidKeyException {
-        System.out.println("=== CREATING PAYOS CHECKSUM ===");
-        System.out.println("Input data: " + data);
-        
-        // Lấy các field theo thứ tự cố định như mã mẫu
-        Integer amount = (Integer) data.get("amount");
-        String cancelUrl = (String) data.get("cancelUrl");
-        String description = (String) data.get("description");
-        Integer orderCode = (Integer) data.get("orderCode");
-        String returnUrl = (String) data.get("returnUrl");
-        
-        System.out.println("Amount: " + amount);
-        System.out.println("Cancel URL: " + cancelUrl);
-        System.out.println("Description: " + description);
-        System.out.println("Order Code: " + orderCode);
-        System.out.println("Return URL: " + returnUrl);
+    // PayOS-facing payment status implied by an order status: PAID once the order is past payment,
+    // CANCELLED when it can no longer be paid
+    static String paymentStatusOf(String orderStatus) {
+        OrderStatus status = OrderStatus.fromValue(orderStatus);
+        if (status == null) {
+            return "PENDING";
+        }
+        switch (status) {
+            case PAID:
+            case CONFIRMED:
+            case PREPARING:
+            case SHIPPING:
+            case DELIVERED:
+            case COMPLETED:
+                return "PAID";
+            case CANCELLED:
+            case EXPIRED:
+                return "CANCELLED";
+            default:
+                return "PENDING";
+        }
+    }
 
-        // Tạo raw data theo format cố định như mã mẫu (không sort)
-        String rawData = "amount=" + amount +
-                "&cancelUrl=" + cancelUrl +
-                "&description=" + description +
-                "&orderCode=" + orderCode +
-                "&returnUrl=" + returnUrl;
-        
-        System.out.println("Raw data for checksum: " + rawData);
+    private static Map<String, Object> errorResult(String message) {
+        Map<String, Object> errorResult = new HashMap<>();
+        errorResult.put("success", false);
+        errorResult.put("message", message);
+        return errorResult;
+    }
 
-        // Tạo HMAC SHA256
-        Mac mac = Mac.getInstance("HmacSHA256");
-        SecretKeySpec secretKeySpec = new SecretKeySpec(checksumKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-        mac.init(secretKeySpec);
-        byte[] hash = mac.doFinal(rawData.getBytes(StandardCharsets.UTF_8));
+    private static String describe(Throwable e) {
+        if (e instanceof TimeoutException) {
+            return "PayOS did not answer in time";
+        }
+        if (e instanceof PayOSUnavailableException) {
+            return "PayOS is temporarily unavailable";
+        }
+        return e.getMessage();
+    }
 
-        // Convert to hex
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : hash) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) {
-                hexString.append('0');
-            }
-            hexString.append(hex);
+    static class PayOSUnavailableException extends RuntimeException {
+        PayOSUnavailableException(String message) {
+            super(message);
         }
+    }
 
-        String checksum = hexString.toString();
-        System.out.println("Generated checksum: " + checksum);
-        System.out.println("Checksum key: " + checksumKey);
-        
-        return checksum;
+    // Tạo checksum theo format PayOS (amount, cancelUrl, description, orderCode, returnUrl)
+    private String createChecksum(Map<String, Object> data) {
+        return signer.signPaymentRequest(data);
     }
 
-    // Verify checksum
+    // Verify checksum of a webhook "data" object (all fields, sorted by key)
     public boolean verifyChecksum(Map<String, Object> data, String signature) {
         try {
-            String calculatedChecksum = createChecksum(data);
-            return calculatedChecksum.equals(signature);
+            return signer.verify(data, signature);
         } catch (Exception e) {
             return false;
         }
@@ -0,0 +1,179 @@
+package com.example.demo.PayOS;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+// HMAC-SHA256 signatures in the PayOS format: "key1=value1&key2=value2..." with keys in alphabetical order.
+// Each thread keeps its own pre-keyed Mac and reusable buffers, so signing and verifying allocate almost
+// nothing and never re-derive the key; verification compares in constant time.
+@Component
+public class PayOSSigner {
+    // Fields covered by the signature of a payment request (already in alphabetical order)
+    static final String[] PAYMENT_REQUEST_FIELDS = {"amount", "cancelUrl", "description", "orderCode", "returnUrl"};
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final ThreadLocal<State> state;
+
+    public PayOSSigner(@Value("${payos.checksum-key}") String checksumKey) {
+        SecretKeySpec key = new SecretKeySpec(checksumKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.state = ThreadLocal.withInitial(() -> new State(key));
+    }
+
+    // Per-thread signing state: Mac initialised once with the key, reused text/byte buffers
+    private static final class State {
+        final Mac mac;
+        final StringBuilder text = new StringBuilder(256);
+        final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        final ByteBuffer bytes = ByteBuffer.allocate(512);
+        final byte[] digest;
+        String[] keys = new String[16];
+
+        State(SecretKeySpec key) {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 not available", e);
+            }
+            digest = new byte[mac.getMacLength()];
+        }
+    }
+
+    // Signature of a payment request: only the five PayOS request fields are signed
+    public String signPaymentRequest(Map<String, ?> data) {
+        State s = state.get();
+        canonicalize(s.text, data, PAYMENT_REQUEST_FIELDS, PAYMENT_REQUEST_FIELDS.length);
+        return toHex(digest(s));
+    }
+
+    // Signature of a data object (e.g. webhook "data"): every field, keys sorted
+    public String sign(Map<String, ?> data) {
+        State s = state.get();
+        canonicalize(s, data);
+        return toHex(digest(s));
+    }
+
+    // Constant-time check of a hex signature against the data object
+    public boolean verify(Map<String, ?> data, String signature) {
+        if (signature == null) {
+            return false;
+        }
+        State s = state.get();
+        canonicalize(s, data);
+        return constantTimeEqualsHex(digest(s), signature);
+    }
+
+    private static void canonicalize(State s, Map<String, ?> data) {
+        int size = data.size();
+        if (s.keys.length < size) {
+            s.keys = new String[Math.max(size, s.keys.length * 2)];
+        }
+        int n = 0;
+        for (String key : data.keySet()) {
+            s.keys[n++] = key;
+        }
+        Arrays.sort(s.keys, 0, n);
+        canonicalize(s.text, data, s.keys, n);
+        Arrays.fill(s.keys, 0, n, null);
+    }
+
+    private static void canonicalize(StringBuilder text, Map<String, ?> data, String[] keys, int count) {
+        text.setLength(0);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append('&');
+            }
+            text.append(keys[i]).append('=');
+            appendValue(text, data.get(keys[i]));
+        }
+    }
+
+    // PayOS canonical values: null (or the strings "null"/"undefined") become empty, arrays/objects are JSON
+    private static void appendValue(StringBuilder text, Object value) {
+        if (value == null || "null".equals(value) || "undefined".equals(value)) {
+            return;
+        }
+        if (value instanceof Map || value instanceof Collection) {
+            try {
+                text.append(JSON.writeValueAsString(value));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Cannot serialise signed field", e);
+            }
+            return;
+        }
+        if (value instanceof CharSequence) {
+            text.append((CharSequence) value);
+        } else {
+            text.append(value);
+        }
+    }
+
+    // UTF-8 encode the canonical text through the fixed byte buffer straight into the Mac
+    private static byte[] digest(State s) {
+        CharBuffer chars = CharBuffer.wrap(s.text);
+        s.encoder.reset();
+        CoderResult result;
+        do {
+            result = s.encoder.encode(chars, s.bytes, true);
+            drain(s);
+        } while (result.isOverflow());
+        while (s.encoder.flush(s.bytes).isOverflow()) {
+            drain(s);
+        }
+        drain(s);
+        try {
+            s.mac.doFinal(s.digest, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        return s.digest;
+    }
+
+    private static void drain(State s) {
+        s.bytes.flip();
+        s.mac.update(s.bytes);
+        s.bytes.clear();
+    }
+
+    private static String toHex(byte[] digest) {
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    // Compares every character regardless of where the first difference is (no timing leak)
+    static boolean constantTimeEqualsHex(byte[] digest, String signature) {
+        if (signature.length() != digest.length * 2) {
+            return false;
+        }
+        int diff = 0;
+        for (int i = 0; i < digest.length; i++) {
+            int high = Character.digit(signature.charAt(2 * i), 16);
+            int low = Character.digit(signature.charAt(2 * i + 1), 16);
+            diff |= (high | low) >>> 31; // non-hex character: digit() returned -1
+            diff |= ((high << 4) | (low & 0xf)) ^ (digest[i] & 0xff);
+        }
+        return diff == 0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.PayOS;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+// Inbox row for each distinct PayOS webhook delivery, unique per (order_code, transaction_id)
+@Entity
+@Table(name = "payos_webhook_inbox", uniqueConstraints = {
+    @UniqueConstraint(name = "UX_payos_webhook_inbox_order_tx", columnNames = {"order_code", "transaction_id"})
+})
+@Data
+@NoArgsConstructor
+public class PayOSWebhookEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_code", nullable = false)
+    private Integer orderCode;
+
+    @Column(name = "transaction_id", nullable = false, length = 100)
+    private String transactionId;
+
+    @Column(name = "status", length = 20)
+    private String status;
+
+    @Column(name = "amount")
+    private Integer amount;
+
+    @Column(name = "event_timestamp", length = 50)
+    private String eventTimestamp;
+
+    @Column(name = "received_at")
+    private LocalDateTime receivedAt;
+
+    // Null while the event is still waiting in the async processing queue
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    public PayOSWebhookEvent(Integer orderCode, String transactionId, String status, Integer amount,
+                             String eventTimestamp) {
+        this.orderCode = orderCode;
+        this.transactionId = transactionId;
+        this.status = status;
+        this.amount = amount;
+        this.eventTimestamp = eventTimestamp;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        receivedAt = LocalDateTime.now();
+    }
+}
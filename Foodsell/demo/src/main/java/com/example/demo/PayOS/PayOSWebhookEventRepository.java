@@ -0,0 +1,28 @@
+package com.example.demo.PayOS;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface PayOSWebhookEventRepository extends JpaRepository<PayOSWebhookEvent, Long> {
+
+    // Duplicate check, served by the unique index on (order_code, transaction_id)
+    boolean existsByOrderCodeAndTransactionId(Integer orderCode, String transactionId);
+
+    // Events still waiting for async processing (queue overflow, restarts, retries)
+    List<PayOSWebhookEvent> findTop100ByProcessedAtIsNullAndAttemptsLessThanOrderByIdAsc(int maxAttempts);
+
+    long countByProcessedAtIsNull();
+
+    // Record a failed attempt in its own transaction (the processing transaction may be rollback-only)
+    @Modifying
+    @Transactional
+    @Query("UPDATE PayOSWebhookEvent e SET e.attempts = e.attempts + 1, e.lastError = :error WHERE e.id = :id")
+    int recordFailedAttempt(@Param("id") Long id, @Param("error") String error);
+}
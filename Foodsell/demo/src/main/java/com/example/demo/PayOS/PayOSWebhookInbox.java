@@ -0,0 +1,122 @@
+package com.example.demo.PayOS;
+
+import com.example.demo.Orders.OrderService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Idempotent entry point for PayOS webhooks: each (orderCode, transactionId) is applied to the order once,
+// retried deliveries are acknowledged without touching the orders row
+@Service
+public class PayOSWebhookInbox {
+    private static final int RECENT_KEYS_CAPACITY = 10_000;
+
+    public enum Outcome { PROCESSED, QUEUED, DUPLICATE, ORDER_NOT_FOUND }
+
+    private final PayOSWebhookEventRepository eventRepository;
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+    private final PayOSWebhookProcessor processor;
+    private final PaymentStatusCache statusCache;
+
+    // In-memory LRU of recently committed keys: retry storms are answered without a database round trip
+    private final Set<String> recentKeys = Collections.newSetFromMap(Collections.synchronizedMap(
+            new LinkedHashMap<String, Boolean>(1024, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > RECENT_KEYS_CAPACITY;
+                }
+            }));
+
+    public PayOSWebhookInbox(PayOSWebhookEventRepository eventRepository, OrderService orderService,
+                             PlatformTransactionManager transactionManager, PayOSWebhookProcessor processor,
+                             PaymentStatusCache statusCache) {
+        this.eventRepository = eventRepository;
+        this.orderService = orderService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.processor = processor;
+        this.statusCache = statusCache;
+    }
+
+    // Async mode: durably record the event with a single insert and hand it to the worker pool.
+    // The caller can acknowledge PayOS as soon as this returns.
+    public Outcome accept(Integer orderCode, String status, Integer amount, String transactionId, String timestamp) {
+        String dedupId = dedupId(transactionId, status);
+        String key = orderCode + "|" + dedupId;
+
+        if (recentKeys.contains(key)) {
+            return Outcome.DUPLICATE;
+        }
+        try {
+            PayOSWebhookEvent event = eventRepository.save(
+                    new PayOSWebhookEvent(orderCode, dedupId, status, amount, timestamp));
+            recentKeys.add(key);
+            processor.submit(event.getId());
+            // PayOS has reported the new status: polls no longer need to ask PayOS for it
+            statusCache.putFromWebhook(orderCode, status, amount);
+            return Outcome.QUEUED;
+        } catch (DataIntegrityViolationException e) {
+            // Unique index on (order_code, transaction_id): this delivery was already accepted
+            recentKeys.add(key);
+            return Outcome.DUPLICATE;
+        }
+    }
+
+    // Sync mode: apply the event to the order before returning
+    public Outcome receive(Integer orderCode, String status, Integer amount, String transactionId, String timestamp) {
+        String dedupId = dedupId(transactionId, status);
+        String key = orderCode + "|" + dedupId;
+
+        // Fast path: no connection is taken from the pool for a delivery we have just committed
+        if (recentKeys.contains(key)) {
+            return Outcome.DUPLICATE;
+        }
+        try {
+            return transactionTemplate.execute(tx -> {
+                if (eventRepository.existsByOrderCodeAndTransactionId(orderCode, dedupId)) {
+                    recentKeys.add(key);
+                    return Outcome.DUPLICATE;
+                }
+                PayOSWebhookEvent event = new PayOSWebhookEvent(orderCode, dedupId, status, amount, timestamp);
+                event.setAttempts(1);
+                event.setProcessedAt(LocalDateTime.now());
+                eventRepository.saveAndFlush(event);
+
+                // Inbox row and order update commit together; if the order is not updated the row is
+                // rolled back as well, so the next PayOS retry is processed again
+                if (!orderService.processPaymentResult(orderCode, status, amount, transactionId, timestamp)) {
+                    tx.setRollbackOnly();
+                    return Outcome.ORDER_NOT_FOUND;
+                }
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        recentKeys.add(key);
+                        statusCache.putFromWebhook(orderCode, status, amount);
+                    }
+                });
+                return Outcome.PROCESSED;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Same event delivered concurrently: the other request inserted the inbox row first
+            return Outcome.DUPLICATE;
+        }
+    }
+
+    // Some deliveries carry no transaction id; fall back to the status so each status change is applied once
+    private static String dedupId(String transactionId, String status) {
+        if (transactionId != null && !transactionId.isBlank()) {
+            return transactionId;
+        }
+        return "status:" + status;
+    }
+}
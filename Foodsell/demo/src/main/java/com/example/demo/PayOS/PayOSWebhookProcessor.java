@@ -0,0 +1,150 @@
+package com.example.demo.PayOS;
+
+import com.example.demo.Orders.OrderService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Worker pool applying queued PayOS webhook events (payos_webhook_inbox rows with processed_at = NULL)
+// to orders. The in-memory queue is bounded; events that do not fit stay in the table and are picked up
+// by the sweeper, so nothing is lost on overflow or restart.
+@Service
+public class PayOSWebhookProcessor {
+    private static final int MAX_ATTEMPTS = 10;
+
+    private final PayOSWebhookEventRepository eventRepository;
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+
+    // Event ids currently queued or running, so the sweeper does not submit them twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public PayOSWebhookProcessor(PayOSWebhookEventRepository eventRepository, OrderService orderService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${payos.webhook.workers:4}") int workers,
+                                 @Value("${payos.webhook.queue-capacity:1000}") int queueCapacity) {
+        this.eventRepository = eventRepository;
+        this.orderService = orderService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queueCapacity = queueCapacity;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "payos-webhook-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public void submit(Long eventId) {
+        if (!inFlight.add(eventId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(eventId);
+                } finally {
+                    inFlight.remove(eventId);
+                }
+            });
+            submitted.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            // Back-pressure: queue is full, the row stays pending for the sweeper
+            inFlight.remove(eventId);
+            rejected.incrementAndGet();
+        }
+    }
+
+    // Re-submit pending events that overflowed the queue, failed, or were queued before a restart
+    @Scheduled(fixedDelayString = "${payos.webhook.retry-interval-ms:30000}")
+    public void sweepPending() {
+        if (executor.getQueue().remainingCapacity() == 0) {
+            return;
+        }
+        for (PayOSWebhookEvent event : eventRepository.findTop100ByProcessedAtIsNullAndAttemptsLessThanOrderByIdAsc(MAX_ATTEMPTS)) {
+            submit(event.getId());
+        }
+    }
+
+    void process(Long eventId) {
+        try {
+            Boolean applied = transactionTemplate.execute(tx -> {
+                PayOSWebhookEvent event = eventRepository.findById(eventId).orElse(null);
+                if (event == null || event.getProcessedAt() != null) {
+                    return Boolean.TRUE;
+                }
+                String transactionId = event.getTransactionId().startsWith("status:") ? null : event.getTransactionId();
+                if (!orderService.processPaymentResult(event.getOrderCode(), event.getStatus(), event.getAmount(),
+                        transactionId, event.getEventTimestamp())) {
+                    tx.setRollbackOnly();
+                    return Boolean.FALSE;
+                }
+                event.setAttempts(event.getAttempts() + 1);
+                event.setProcessedAt(LocalDateTime.now());
+                event.setLastError(null);
+                eventRepository.save(event);
+                return Boolean.TRUE;
+            });
+            if (Boolean.TRUE.equals(applied)) {
+                processed.incrementAndGet();
+            } else {
+                recordFailure(eventId, "Order not found or not updated");
+            }
+        } catch (RuntimeException e) {
+            recordFailure(eventId, e.getMessage());
+        }
+    }
+
+    private void recordFailure(Long eventId, String error) {
+        failed.incrementAndGet();
+        String message = error == null ? "Unknown error" : error;
+        eventRepository.recordFailedAttempt(eventId, message.length() > 500 ? message.substring(0, 500) : message);
+        System.err.println("⚠️ PayOS webhook event " + eventId + " not applied: " + message);
+    }
+
+    // Back-pressure metrics for monitoring (queue depth vs capacity, worker utilisation, counters)
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("queueDepth", executor.getQueue().size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("activeWorkers", executor.getActiveCount());
+        metrics.put("workers", executor.getMaximumPoolSize());
+        metrics.put("submitted", submitted.get());
+        metrics.put("processed", processed.get());
+        metrics.put("failed", failed.get());
+        metrics.put("rejected", rejected.get());
+        metrics.put("pendingInDatabase", eventRepository.countByProcessedAtIsNull());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
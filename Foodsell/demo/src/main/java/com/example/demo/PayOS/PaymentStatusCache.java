@@ -0,0 +1,121 @@
+package com.example.demo.PayOS;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Short-TTL cache of payment-status lookups keyed by PayOS order code.
+// The checkout page polls GET /api/payos/payment/{orderCode}; polls within the TTL are answered locally and
+// concurrent polls for the same order share one in-flight PayOS call. Webhooks overwrite the cached status.
+@Component
+public class PaymentStatusCache {
+    // PayOS statuses that never change again: cached longer once a webhook reports them
+    private static final Set<String> FINAL_STATUSES = Set.of("PAID", "CANCELLED", "EXPIRED");
+
+    private final long ttlMs;
+    private final long finalTtlMs;
+    private final int maxEntries;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong webhookUpdates = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public PaymentStatusCache(@Value("${payos.status-cache.ttl-ms:5000}") long ttlMs,
+                              @Value("${payos.status-cache.final-ttl-ms:60000}") long finalTtlMs,
+                              @Value("${payos.status-cache.max-entries:10000}") int maxEntries) {
+        this.ttlMs = ttlMs;
+        this.finalTtlMs = finalTtlMs;
+        this.maxEntries = maxEntries;
+    }
+
+    private static final class Entry {
+        final Mono<Map<String, Object>> value;
+        final long expiresAt;
+
+        Entry(Mono<Map<String, Object>> value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // Cached result for the order code, or the loader's result (only successful lookups are kept)
+    public Mono<Map<String, Object>> get(Integer orderCode, Supplier<Mono<Map<String, Object>>> loader) {
+        long now = System.currentTimeMillis();
+        Entry cached = entries.get(orderCode);
+        if (cached != null && cached.expiresAt > now) {
+            hits.incrementAndGet();
+            return cached.value;
+        }
+        misses.incrementAndGet();
+        Entry[] self = new Entry[1];
+        Mono<Map<String, Object>> loaded = loader.get()
+                .doOnNext(result -> {
+                    if (!Boolean.TRUE.equals(result.get("success"))) {
+                        entries.remove(orderCode, self[0]);
+                    }
+                })
+                .cache();
+        self[0] = new Entry(loaded, now + ttlMs);
+        if (makeRoom()) {
+            entries.put(orderCode, self[0]);
+        }
+        return loaded;
+    }
+
+    // Webhook from PayOS: replace whatever is cached with the reported status
+    public void putFromWebhook(Integer orderCode, String status, Integer amount) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("orderCode", orderCode);
+        data.put("status", status);
+        data.put("amount", amount);
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("data", data);
+
+        long ttl = FINAL_STATUSES.contains(status) ? finalTtlMs : ttlMs;
+        webhookUpdates.incrementAndGet();
+        if (makeRoom()) {
+            entries.put(orderCode, new Entry(Mono.just(result), System.currentTimeMillis() + ttl));
+        } else {
+            entries.remove(orderCode);
+        }
+    }
+
+    public void invalidate(Integer orderCode) {
+        if (entries.remove(orderCode) != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("hits", hitCount);
+        metrics.put("misses", missCount);
+        metrics.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        metrics.put("webhookUpdates", webhookUpdates.get());
+        metrics.put("invalidations", invalidations.get());
+        metrics.put("size", entries.size());
+        return metrics;
+    }
+
+    // Drop expired entries once the cache is full; if it is still full, the new entry is not cached
+    private boolean makeRoom() {
+        if (entries.size() < maxEntries) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        return entries.size() < maxEntries;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.demo.PayOS;
+
+import com.example.demo.Orders.Order;
+import com.example.demo.Orders.OrderRepository;
+import com.example.demo.Orders.OrderService;
+import com.example.demo.Orders.OrderStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Recovers PayOS orders whose webhook never arrived: pending orders older than stale-after-minutes are
+// looked up on PayOS (paced to requests-per-second, at most max-per-run per run) and the reported
+// PAID/CANCELLED/EXPIRED status is applied. Orders still unpaid after expire-after-minutes have their
+// payment link cancelled on PayOS first, then are marked expired, so a late payment cannot land on an
+// expired order; past that deadline an order whose link PayOS reports as not found is expired directly.
+// Any other error answer (bad credentials, throttling, ...) is skipped and retried on the next run.
+// Runs continue in id order where the previous one stopped and wrap at the end, so orders that cannot
+// be resolved (PayOS unreachable) never starve newer ones.
+@Service
+public class PendingPaymentReconciler {
+    private static final Duration LOOKUP_TIMEOUT = Duration.ofSeconds(10);
+    // PayOS error code for "payment request not found"
+    static final String PAYMENT_NOT_FOUND = "101";
+
+    private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    private final PayOSService payOSService;
+    private final PayOSCircuitBreaker circuitBreaker;
+    private final boolean enabled;
+    private final long staleAfterMinutes;
+    private final long expireAfterMinutes;
+    private final int batchSize;
+    private final int maxPerRun;
+    private final long pauseMs;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    // Keyset cursor: id of the last order checked; back to 0 after the newest stale order
+    private volatile int cursor;
+
+    public PendingPaymentReconciler(OrderRepository orderRepository, OrderService orderService,
+                                    PayOSService payOSService, PayOSCircuitBreaker circuitBreaker,
+                                    @Value("${payos.reconcile.enabled:true}") boolean enabled,
+                                    @Value("${payos.reconcile.stale-after-minutes:15}") long staleAfterMinutes,
+                                    @Value("${payos.reconcile.expire-after-minutes:60}") long expireAfterMinutes,
+                                    @Value("${payos.reconcile.batch-size:20}") int batchSize,
+                                    @Value("${payos.reconcile.max-per-run:200}") int maxPerRun,
+                                    @Value("${payos.reconcile.requests-per-second:5}") int requestsPerSecond) {
+        this.orderRepository = orderRepository;
+        this.orderService = orderService;
+        this.payOSService = payOSService;
+        this.circuitBreaker = circuitBreaker;
+        this.enabled = enabled;
+        this.staleAfterMinutes = staleAfterMinutes;
+        this.expireAfterMinutes = expireAfterMinutes;
+        this.batchSize = batchSize;
+        this.maxPerRun = maxPerRun;
+        this.pauseMs = requestsPerSecond > 0 ? 1000L / requestsPerSecond : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${payos.reconcile.interval-ms:60000}",
+               initialDelayString = "${payos.reconcile.initial-delay-ms:60000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int processed = reconcileOnce(LocalDateTime.now());
+            if (processed > 0) {
+                System.out.println("✅ Reconciled " + processed + " stale pending PayOS orders");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Pending payment reconciliation failed: " + e.getMessage());
+        }
+    }
+
+    // Up to max-per-run pending orders created before now - stale-after, in id order from the cursor;
+    // returns orders checked
+    public int reconcileOnce(LocalDateTime now) throws InterruptedException {
+        runs.incrementAndGet();
+        lastRunAt = now;
+        LocalDateTime staleBefore = now.minusMinutes(staleAfterMinutes);
+        LocalDateTime expireBefore = now.minusMinutes(expireAfterMinutes);
+
+        int count = 0;
+        while (count < maxPerRun) {
+            List<Order> batch = orderRepository.findStalePendingPayosOrders(
+                    OrderStatus.PENDING.getStoredValues(), staleBefore, cursor,
+                    PageRequest.of(0, Math.min(batchSize, maxPerRun - count)));
+            if (batch.isEmpty()) {
+                cursor = 0; // end of the list: the next run starts over
+                break;
+            }
+            for (Order order : batch) {
+                // PayOS is down: leave the rest for the next run instead of piling up failed lookups
+                if (circuitBreaker.getState() == PayOSCircuitBreaker.State.OPEN) {
+                    System.err.println("⚠️ PayOS circuit open, reconciliation paused");
+                    return count;
+                }
+                if (count > 0 && pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+                reconcileOrder(order, expireBefore);
+                cursor = order.getId();
+                count++;
+                checked.incrementAndGet();
+            }
+        }
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void reconcileOrder(Order order, LocalDateTime expireBefore) {
+        Integer orderCode = order.getPayosOrderCode();
+        Map<String, Object> result = payOSService.getPaymentInfo(orderCode).block(LOOKUP_TIMEOUT);
+        // PayOS not reached (database fallback only echoes our own status): nothing learned about the payment
+        if (result == null || Boolean.TRUE.equals(result.get("fallback"))) {
+            skipped.incrementAndGet();
+            return;
+        }
+        if (!Boolean.TRUE.equals(result.get("success"))) {
+            // The link was never created, so there is nothing to cancel
+            if (PAYMENT_NOT_FOUND.equals(String.valueOf(result.get("code")))) {
+                if (isPastDeadline(order, expireBefore)
+                        && orderService.processPaymentResult(orderCode, "EXPIRED", null, null, "reconciler")) {
+                    expired.incrementAndGet();
+                }
+                return;
+            }
+            // Any other refusal says nothing about the link, which may still be payable
+            System.err.println("⚠️ PayOS lookup for order " + order.getId() + " failed: " + result.get("message"));
+            skipped.incrementAndGet();
+            return;
+        }
+        Map<String, Object> data = (Map<String, Object>) result.get("data");
+        String status = data != null ? (String) data.get("status") : null;
+        Integer amount = data != null && data.get("amount") instanceof Number ? ((Number) data.get("amount")).intValue() : null;
+
+        if ("PAID".equals(status) || "CANCELLED".equals(status) || "EXPIRED".equals(status)) {
+            if (orderService.processPaymentResult(orderCode, status, amount, transactionReference(data), "reconciler")) {
+                applied.incrementAndGet();
+            }
+            return;
+        }
+        if (isPastDeadline(order, expireBefore)) {
+            expire(order, amount);
+        }
+    }
+
+    private static boolean isPastDeadline(Order order, LocalDateTime expireBefore) {
+        return order.getCreatedAt() != null && order.getCreatedAt().isBefore(expireBefore);
+    }
+
+    // Abandoned checkout: close the payment link before expiring the order
+    private void expire(Order order, Integer amount) {
+        Integer orderCode = order.getPayosOrderCode();
+        Map<String, Object> cancelled = payOSService.cancelPayment(orderCode, "Payment not completed in time")
+                .block(LOOKUP_TIMEOUT);
+        if (cancelled == null || !Boolean.TRUE.equals(cancelled.get("success"))) {
+            System.err.println("⚠️ Could not cancel PayOS link for order " + order.getId() + ", will retry");
+            skipped.incrementAndGet();
+            return;
+        }
+        if (orderService.processPaymentResult(orderCode, "EXPIRED", amount, null, "reconciler")) {
+            expired.incrementAndGet();
+        }
+    }
+
+    // Bank reference of the first PayOS transaction, if any
+    @SuppressWarnings("unchecked")
+    private static String transactionReference(Map<String, Object> data) {
+        Object transactions = data.get("transactions");
+        if (transactions instanceof List && !((List<?>) transactions).isEmpty()
+                && ((List<?>) transactions).get(0) instanceof Map) {
+            Object reference = ((Map<String, Object>) ((List<?>) transactions).get(0)).get("reference");
+            return reference != null ? reference.toString() : null;
+        }
+        return null;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("runs", runs.get());
+        metrics.put("checked", checked.get());
+        metrics.put("applied", applied.get());
+        metrics.put("expired", expired.get());
+        metrics.put("skipped", skipped.get());
+        metrics.put("lastRunAt", lastRunAt);
+        metrics.put("cursor", cursor);
+        metrics.put("pendingOrders", orderRepository.countByStatusIn(OrderStatus.PENDING.getStoredValues()));
+        return metrics;
+    }
+}
@@ -1,28 +1,41 @@
 package com.example.demo;
 
+import com.example.demo.Users.User;
 import com.example.demo.config.RoleChecker;
 import com.example.demo.dto.OrderDTO;
+import com.example.demo.dto.OrderPageDTO;
 import com.example.demo.Orders.OrderService;
+import com.example.demo.Orders.OrderStatus;
+import com.example.demo.shops.ShopService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/seller")
 @CrossOrigin(origins = "http://localhost:3000")
 public class SellerController {
     
+    // Trạng thái seller được phép chuyển đơn hàng sang
+    private static final Set<OrderStatus> ALLOWED_STATUSES = EnumSet.of(
+            OrderStatus.CONFIRMED, OrderStatus.PREPARING, OrderStatus.SHIPPING, OrderStatus.CANCELLED);
+    
     private final OrderService orderService;
     private final RoleChecker roleChecker;
+    private final ShopService shopService;
 
     @Autowired
-    public SellerController(OrderService orderService, RoleChecker roleChecker) {
+    public SellerController(OrderService orderService, RoleChecker roleChecker, ShopService shopService) {
         this.orderService = orderService;
         this.roleChecker = roleChecker;
+        this.shopService = shopService;
     }
 
     // GET: Lấy đơn hàng của seller
@@ -34,6 +47,14 @@ public class SellerController {
         return orderService.getAllOrders();
     }
     
+    // GET: Lấy đơn hàng của seller theo trang (keyset cursor)
+    @GetMapping("/orders/page")
+    @PreAuthorize("hasRole('SELLER') or hasRole('ADMIN')")
+    public OrderPageDTO getSellerOrdersPage(@RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer size) {
+        return orderService.getOrdersPage(cursor, size);
+    }
+    
     // GET: Dashboard thống kê seller
     @GetMapping("/dashboard")
     @PreAuthorize("hasRole('SELLER') or hasRole('ADMIN')")
@@ -58,13 +79,32 @@ public class SellerController {
             @RequestBody Map<String, String> statusUpdate) {
         
         String newStatus = statusUpdate.get("status");
+        OrderStatus target = OrderStatus.fromValue(newStatus);
         
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", true);
-        response.put("message", "Order status updated to: " + newStatus);
-        response.put("orderId", orderId);
+        // Seller chỉ được xác nhận, chuẩn bị, giao cho shipper hoặc hủy đơn
+        // (đơn PayOS chỉ xác nhận được sau khi đã thanh toán - OrderService trả PAYMENT_REQUIRED)
+        if (target == null || !ALLOWED_STATUSES.contains(target)) {
+            return OrderStatusResponses.rejected(orderId, "INVALID_STATUS", "Status not allowed here: " + newStatus);
+        }
         
-        return ResponseEntity.ok(response);
+        // Seller chỉ cập nhật đơn của shop mình (admin: mọi đơn)
+        if (!roleChecker.isAdmin()) {
+            Optional<Integer> shopId = orderService.getShopIdOfOrder(orderId);
+            if (shopId.isEmpty()) {
+                return OrderStatusResponses.rejected(orderId, "NOT_FOUND", "Order not found: " + orderId);
+            }
+            if (!ownsShop(roleChecker.getCurrentUser(), shopId.get())) {
+                return OrderStatusResponses.rejected(orderId, "FORBIDDEN", "You can only update orders of your own shop");
+            }
+        }
+        
+        return OrderStatusResponses.toResponse(orderService.updateOrderStatus(orderId, target.getValue()));
+    }
+    
+    private boolean ownsShop(User user, Integer shopId) {
+        return user != null && user.getId() != null && shopService.getShopById(shopId)
+                .map(shop -> shop.getSellerId() == user.getId())
+                .orElse(false);
     }
     
     // GET: Thống kê doanh thu
@@ -2,20 +2,28 @@ package com.example.demo;
 
 import com.example.demo.config.RoleChecker;
 import com.example.demo.dto.OrderDTO;
+import com.example.demo.dto.OrderPageDTO;
 import com.example.demo.Orders.OrderService;
+import com.example.demo.Orders.OrderStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/shipper")
 @CrossOrigin(origins = "http://localhost:3000")
 public class ShipperController {
     
+    // Trạng thái shipper được phép chuyển đơn hàng sang: chỉ shipping -> delivered (seller giao đơn cho shipper).
+    // Orders have no shipper assignment yet, so any shipper can deliver any order that is out for shipping.
+    private static final Set<OrderStatus> ALLOWED_STATUSES = EnumSet.of(OrderStatus.DELIVERED);
+    
     private final OrderService orderService;
     private final RoleChecker roleChecker;
 
@@ -33,6 +41,14 @@ public class ShipperController {
         return orderService.getAllOrders();
     }
     
+    // GET: Lấy đơn hàng cần giao theo trang (keyset cursor)
+    @GetMapping("/orders/page")
+    @PreAuthorize("hasRole('SHIPPER') or hasRole('ADMIN')")
+    public OrderPageDTO getShipperOrdersPage(@RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer size) {
+        return orderService.getOrdersPage(cursor, size);
+    }
+    
     // GET: Dashboard thống kê shipper
     @GetMapping("/dashboard")
     @PreAuthorize("hasRole('SHIPPER') or hasRole('ADMIN')")
@@ -69,13 +85,14 @@ public class ShipperController {
             @RequestBody Map<String, String> statusUpdate) {
         
         String newStatus = statusUpdate.get("status");
+        OrderStatus target = OrderStatus.fromValue(newStatus);
         
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", true);
-        response.put("message", "Delivery status updated to: " + newStatus);
-        response.put("orderId", orderId);
+        // Shipper chỉ được cập nhật trạng thái giao hàng
+        if (target == null || !ALLOWED_STATUSES.contains(target)) {
+            return OrderStatusResponses.rejected(orderId, "INVALID_STATUS", "Status not allowed here: " + newStatus);
+        }
         
-        return ResponseEntity.ok(response);
+        return OrderStatusResponses.toResponse(orderService.updateOrderStatus(orderId, target.getValue()));
     }
     
     // GET: Thống kê thu nhập
@@ -7,6 +7,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import com.example.demo.config.JwtUtil;
 import com.example.demo.config.FileUploadService;
+import com.example.demo.config.UploadRejectedException;
+import jakarta.servlet.http.HttpServletRequest;
 
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
@@ -230,6 +232,37 @@ public class AuthController {
         }
     }
 
+    // Streaming avatar upload: the raw image is the request body (no multipart), its type is read from the first
+    // bytes and it is written to disk as it arrives. At most upload.streaming.max-concurrent-per-user at a time.
+    @PutMapping(value = "/avatar", consumes = {"image/*", "application/octet-stream"})
+    public ResponseEntity<ApiResponse<User>> streamAvatar(HttpServletRequest request, Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof User)) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Authentication required"));
+        }
+        User user = (User) authentication.getPrincipal();
+        
+        try {
+            String filePath = fileUploadService.uploadProfileImageStream(user.getId(), request.getInputStream(),
+                    request.getContentLengthLong());
+            String previousImage = user.getProfileImage();
+            
+            user.setProfileImage("http://localhost:8080/" + filePath);
+            user.setUpdatedAt(LocalDateTime.now());
+            User updatedUser = userRepository.save(user);
+            
+            if (previousImage != null && !previousImage.isEmpty()) {
+                fileUploadService.deleteProfileImage(previousImage);
+            }
+            System.out.println("✅ Avatar streamed for user: " + user.getEmail() + ", path: " + filePath);
+            return ResponseEntity.ok(ApiResponse.success(updatedUser, "Avatar updated successfully"));
+        } catch (UploadRejectedException e) {
+            return ResponseEntity.status(e.getStatus()).body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            System.err.println("❌ Avatar upload error: " + e.getMessage());
+            return ResponseEntity.status(500).body(ApiResponse.error("Failed to upload avatar: " + e.getMessage()));
+        }
+    }
+
     @PostMapping("/remove-avatar")
     public ResponseEntity<ApiResponse<User>> removeAvatar(Authentication authentication) {
         User user = (User) authentication.getPrincipal();
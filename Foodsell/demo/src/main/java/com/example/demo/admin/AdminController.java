@@ -1,8 +1,10 @@
 package com.example.demo.admin;
 
 import com.example.demo.Users.User;
+import com.example.demo.config.UploadGarbageCollector;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +19,9 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private UploadGarbageCollector uploadGarbageCollector;
+
     @GetMapping("/dashboard")
     public ResponseEntity<AdminDashboardDTO> getDashboard() {
         return ResponseEntity.ok(adminService.getDashboard());
@@ -286,4 +291,11 @@ public class AdminController {
         adminService.rejectProduct(id, reason);
         return ResponseEntity.ok(Map.of("success", true, "message", "Product rejected successfully"));
     }
+
+    // Orphaned upload sweeper counters (scanned, quarantined/deleted, purged) and current checkpoint
+    @GetMapping("/uploads/gc/metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getUploadGcMetrics() {
+        return ResponseEntity.ok(uploadGarbageCollector.getMetrics());
+    }
 }
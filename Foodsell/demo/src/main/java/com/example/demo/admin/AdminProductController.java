@@ -1,7 +1,9 @@
 package com.example.demo.admin;
 
 import com.example.demo.products.Product;
+import com.example.demo.products.ProductCatalogCache;
 import com.example.demo.products.ProductRepository;
+import com.example.demo.products.ProductSearchIndex;
 import com.example.demo.Users.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +21,12 @@ public class AdminProductController {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
     // Get all pending products
     @GetMapping("/pending")
     public ResponseEntity<?> getPendingProducts(Authentication authentication) {
@@ -78,6 +86,8 @@ public class AdminProductController {
             product.setAvailable(true); // Make it available for customers
             
             productRepository.save(product);
+            productSearchIndex.update(product);
+            productCatalogCache.productChanged(product.getId(), product);
 
             return ResponseEntity.ok(Map.of(
                 "success", true, 
@@ -121,6 +131,8 @@ public class AdminProductController {
             product.setAvailable(false); // Hide from customers
             
             productRepository.save(product);
+            productSearchIndex.update(product);
+            productCatalogCache.productChanged(product.getId(), product);
 
             return ResponseEntity.ok(Map.of(
                 "success", true, 
@@ -1,5 +1,9 @@
 package com.example.demo.admin;
 
+import com.example.demo.config.CollectionVersions;
+import com.example.demo.products.ProductCatalogCache;
+import com.example.demo.products.ProductSearchIndex;
+import com.example.demo.search.SuggestionIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.util.*;
@@ -10,6 +14,18 @@ public class AdminService {
     @Autowired
     private AdminRepository adminRepo;
 
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    private CollectionVersions versions;
+
     public AdminDashboardDTO getDashboard() {
         return new AdminDashboardDTO(
                 adminRepo.countUsers(),
@@ -25,12 +41,15 @@ public class AdminService {
         return adminRepo.findAllUsers();
     }
 
+    // Banning a user also bans their shops
     public void banUser(int id) {
         adminRepo.setUserBanned(id, true);
+        versions.bump(CollectionVersions.SHOPS);
     }
 
     public void unbanUser(int id) {
         adminRepo.setUserBanned(id, false);
+        versions.bump(CollectionVersions.SHOPS);
     }
 
     // ==== USERS: Admin updates and deletes ====
@@ -44,6 +63,8 @@ public class AdminService {
 
     public void hardDeleteUserByAdmin(int adminId, int userId) {
         adminRepo.hardDeleteUserByAdmin(adminId, userId);
+        productCatalogCache.clear(); // a seller's shops and products go with them
+        versions.bump(CollectionVersions.SHOPS);
     }
 
     public int createUserByAdmin(String fullName, String email, String passwordHash, String role) {
@@ -100,14 +121,22 @@ public class AdminService {
 
     public void addProduct(Map<String, Object> body) {
         adminRepo.addProduct(body);
+        // New products start pending: only the shop's own list changes
+        if (body.get("shopId") != null) {
+            productCatalogCache.shopChanged(Integer.parseInt(body.get("shopId").toString()));
+        }
     }
 
     public void updateProduct(int id, Map<String, Object> body) {
         adminRepo.updateProduct(id, body);
+        productSearchIndex.refresh(id);
+        productCatalogCache.refresh(id);
     }
 
     public void deleteProduct(int id) {
         adminRepo.deleteProduct(id);
+        productSearchIndex.remove(id);
+        productCatalogCache.productChanged(id, null);
     }
 
     // ===== Shops Management =====
@@ -121,10 +150,14 @@ public class AdminService {
 
     public void banShop(int shopId, String reason) {
         adminRepo.banShop(shopId, reason);
+        suggestionIndex.refreshShop(shopId);
+        versions.bump(CollectionVersions.SHOPS);
     }
 
     public void unbanShop(int shopId) {
         adminRepo.unbanShop(shopId);
+        suggestionIndex.refreshShop(shopId);
+        versions.bump(CollectionVersions.SHOPS);
     }
 
     // ===== Product Approval =====
@@ -134,10 +167,14 @@ public class AdminService {
 
     public void approveProduct(int productId) {
         adminRepo.updateProductApprovalStatus(productId, "approved", null);
+        productSearchIndex.refresh(productId);
+        productCatalogCache.refresh(productId);
     }
 
     public void rejectProduct(int productId, String reason) {
         adminRepo.updateProductApprovalStatus(productId, "rejected", reason);
+        productSearchIndex.refresh(productId);
+        productCatalogCache.refresh(productId);
     }
 
 }
@@ -1,9 +1,12 @@
 package com.example.demo.categories;
 
+import com.example.demo.config.CollectionVersions;
 import com.example.demo.dto.ApiResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,15 +18,21 @@ import java.util.ArrayList;
 public class CategoryController {
     
     private final CategoryService categoryService;
+    private final CollectionVersions versions;
     
     @Autowired
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, CollectionVersions versions) {
         this.categoryService = categoryService;
+        this.versions = versions;
     }
     
-    // GET: Lấy tất cả categories
+    // GET: Lấy tất cả categories (304 nếu client đã có phiên bản mới nhất)
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Category>>> getAllCategories() {
+    public ResponseEntity<ApiResponse<List<Category>>> getAllCategories(WebRequest request) {
+        if (request.checkNotModified(versions.etag(CollectionVersions.CATEGORIES),
+                                     versions.lastModified(CollectionVersions.CATEGORIES))) {
+            return null;
+        }
         try {
             // Mock data để test trước
             List<Category> categories = new ArrayList<>();
@@ -34,7 +43,8 @@ public class CategoryController {
             categories.add(new Category("Pizza", "Món pizza phong cách Ý, nhiều loại topping đa dạng"));
             categories.add(new Category("Bún", "Món bún Việt Nam truyền thống, dùng với thịt, chả"));
             
-            return ResponseEntity.ok(ApiResponse.success(categories, "Lấy danh sách categories thành công"));
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                    .body(ApiResponse.success(categories, "Lấy danh sách categories thành công"));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(ApiResponse.error("Lỗi khi lấy danh sách categories: " + e.getMessage()));
         }
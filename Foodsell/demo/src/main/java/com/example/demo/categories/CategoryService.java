@@ -1,5 +1,7 @@
 package com.example.demo.categories;
 
+import com.example.demo.config.CollectionVersions;
+import com.example.demo.search.SuggestionIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,10 +14,15 @@ import java.util.Optional;
 public class CategoryService {
     
     private final CategoryRepository categoryRepository;
+    private final SuggestionIndex suggestionIndex;
+    private final CollectionVersions versions;
     
     @Autowired
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, SuggestionIndex suggestionIndex,
+                           CollectionVersions versions) {
         this.categoryRepository = categoryRepository;
+        this.suggestionIndex = suggestionIndex;
+        this.versions = versions;
     }
     
     // Lấy tất cả categories
@@ -40,7 +47,10 @@ public class CategoryService {
             throw new RuntimeException("Category với tên '" + category.getName() + "' đã tồn tại");
         }
         
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        suggestionIndex.putCategory(saved);
+        versions.bump(CollectionVersions.CATEGORIES);
+        return saved;
     }
     
     // Cập nhật category
@@ -57,7 +67,10 @@ public class CategoryService {
         category.setName(categoryDetails.getName());
         category.setDescription(categoryDetails.getDescription());
         
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        suggestionIndex.putCategory(saved);
+        versions.bump(CollectionVersions.CATEGORIES);
+        return saved;
     }
     
     // Xóa category
@@ -66,6 +79,8 @@ public class CategoryService {
                 .orElseThrow(() -> new RuntimeException("Category không tồn tại với ID: " + id));
         
         categoryRepository.delete(category);
+        suggestionIndex.removeCategory(id);
+        versions.bump(CollectionVersions.CATEGORIES);
     }
     
     // Tìm kiếm categories theo keyword
@@ -134,6 +149,10 @@ public class CategoryService {
             categoryRepository.save(nuocUong);
             categoryRepository.save(pizza);
             categoryRepository.save(bun);
+            for (Category category : new Category[]{pho, banhMi, com, nuocUong, pizza, bun}) {
+                suggestionIndex.putCategory(category);
+            }
+            versions.bump(CollectionVersions.CATEGORIES);
             
             return "Đã tạo " + categoryRepository.count() + " categories mẫu thành công!";
         } catch (Exception e) {
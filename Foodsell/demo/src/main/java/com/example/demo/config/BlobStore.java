@@ -0,0 +1,285 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+// Content-addressed upload storage: a file is stored once under its SHA-256, "uploads/blobs/3f/3fa9...c2.png",
+// however many products, avatars or complaints use it. The upload is hashed while it is streamed to a temp file
+// (one pass, one 64 KB buffer), then moved into place or dropped if the same content is already stored.
+// upload_blobs.ref_count counts the owners that stored a blob URL; release() drops one. UploadGarbageCollector
+// removes a blob only at 0 and only once no stored URL points at it either: order history copies product image
+// URLs (order_summaries.thumbnail_url) without taking a reference. Ref-count writes run in their own transaction,
+// committed before the blob's lock is released; a reference taken in a caller transaction that rolls back is
+// given back.
+// Blob files never change once written, which is what lets UploadResourceHandler serve them as immutable.
+@Service
+public class BlobStore {
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern EXTENSION = Pattern.compile("\\.[a-z0-9]{1,5}");
+    private static final int LOCK_STRIPES = 64;
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+    // Uploads worth serving gzip-encoded (images and PDFs are already compressed)
+    private static final Set<String> COMPRESSIBLE = Set.of(".txt", ".csv", ".json", ".xml", ".svg");
+
+    private final UploadBlobRepository repository;
+    private final ImageVariantService imageVariants;
+    private final Path root;
+    private final Path tempDir;
+    private final TransactionTemplate refCounts;
+
+    // Store and collect of the same hash are serialized, so the sweeper never removes a blob while it is re-added
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public BlobStore(UploadBlobRepository repository, ImageVariantService imageVariants,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${upload.blob-dir:uploads/blobs}") String root) {
+        this.repository = repository;
+        this.imageVariants = imageVariants;
+        // Not the caller's transaction (e.g. a @Transactional complaint upload): the count must be committed while
+        // the lock is held, and a duplicate-key failure must not mark the caller's transaction rollback-only
+        this.refCounts = new TransactionTemplate(transactionManager);
+        this.refCounts.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.root = Paths.get(root);
+        this.tempDir = this.root.resolve(".tmp");
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public String store(MultipartFile file) throws IOException {
+        try (ReadableByteChannel body = Channels.newChannel(file.getInputStream())) {
+            return store(ByteBuffer.allocate(0), body, extension(file.getOriginalFilename()), Long.MAX_VALUE);
+        }
+    }
+
+    // Writes head (bytes already read, e.g. to sniff the type) and then the rest of body to a temp file through a
+    // FileChannel, hashing each chunk on the way; a body over maxBytes is rejected as soon as it is exceeded.
+    // Returns the relative path of the blob ("uploads/blobs/..."), to be kept in the database
+    public String store(ByteBuffer head, ReadableByteChannel body, String extension, long maxBytes) throws IOException {
+        Files.createDirectories(tempDir);
+        Path temp = Files.createTempFile(tempDir, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                size = append(head, out, digest, size, maxBytes);
+                ByteBuffer chunk = ByteBuffer.allocate(COPY_BUFFER_BYTES);
+                while (body.read(chunk) >= 0) {
+                    size = append(chunk.flip(), out, digest, size, maxBytes);
+                    chunk.clear();
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            return add(hash, extension, temp, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static long append(ByteBuffer buffer, FileChannel out, MessageDigest digest, long size, long maxBytes)
+            throws IOException {
+        long total = size + buffer.remaining();
+        if (total > maxBytes) {
+            throw new UploadRejectedException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "File size too large. Maximum " + maxBytes / (1024 * 1024) + "MB allowed");
+        }
+        digest.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        return total;
+    }
+
+    private String add(String hash, String extension, Path temp, long size) throws IOException {
+        synchronized (lockFor(hash)) {
+            UploadBlob existing = refCounts.execute(status -> repository.findById(hash).orElse(null));
+            if (existing != null) {
+                Path path = Paths.get(existing.getPath());
+                // Row survived a lost file (manual cleanup): put the content back
+                if (!Files.exists(path)) {
+                    moveIntoPlace(temp, path);
+                } else {
+                    // Fresh reference: keeps the orphan sweeper away until the new owner row is saved
+                    Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+                }
+                refCounts.executeWithoutResult(status -> repository.incrementRefCount(hash));
+                releaseOnRollback(hash);
+                System.out.println("♻️ Upload deduplicated: " + path.getFileName());
+                return existing.getPath();
+            }
+
+            Path target = root.resolve(hash.substring(0, 2)).resolve(hash + extension);
+            moveIntoPlace(temp, target);
+            String path = target.toString().replace('\\', '/');
+
+            UploadBlob blob = new UploadBlob();
+            blob.setHash(hash);
+            blob.setPath(path);
+            blob.setSize(size);
+            blob.setRefCount(1);
+            blob.setCreatedAt(LocalDateTime.now());
+            try {
+                refCounts.executeWithoutResult(status -> repository.saveAndFlush(blob));
+            } catch (DataIntegrityViolationException e) {
+                // Same content stored concurrently by another instance
+                refCounts.executeWithoutResult(status -> repository.incrementRefCount(hash));
+            }
+            releaseOnRollback(hash);
+            if (ImageVariantService.isOriginalImage(target.getFileName().toString())) {
+                imageVariants.generateAsync(target); // thumbnails, served with ?size=
+            } else if (COMPRESSIBLE.contains(extension)) {
+                precompress(target);
+            }
+            return path;
+        }
+    }
+
+    // The owner's row (e.g. a complaint image) is rolled back with the caller, the committed reference is not
+    private void releaseOnRollback(String hash) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    refCounts.executeWithoutResult(s -> repository.decrementRefCount(hash));
+                }
+            }
+        });
+    }
+
+    // Drops one reference to the blob behind a stored path or URL ("http://localhost:8080/uploads/blobs/..").
+    // At 0 the file stays until the sweeper also finds no stored URL for it. Returns false when the path is not
+    // a blob (older UUID uploads).
+    public boolean release(String pathOrUrl) {
+        String hash = hashOf(pathOrUrl);
+        if (hash == null) {
+            return false;
+        }
+        refCounts.executeWithoutResult(status -> repository.decrementRefCount(hash));
+        return true;
+    }
+
+    // Orphan sweep (UploadGarbageCollector, which found no stored URL for the file): drops the row of a blob nothing
+    // references and hands the file to remover, unless it is still counted or was stored again after cutoff.
+    // Serialized with store of the same hash.
+    public boolean collect(Path file, Instant cutoff, Remover remover) throws IOException {
+        String hash = hashOf(file.getFileName().toString());
+        if (hash == null) {
+            return false;
+        }
+        synchronized (lockFor(hash)) {
+            if (!Files.exists(file) || Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)) {
+                return false;
+            }
+            UploadBlob blob = refCounts.execute(status -> repository.findById(hash).orElse(null));
+            if (blob != null && blob.getRefCount() > 0) {
+                return false;
+            }
+            refCounts.executeWithoutResult(status -> repository.deleteById(hash));
+            remover.remove(file);
+            return true;
+        }
+    }
+
+    public interface Remover {
+        void remove(Path file) throws IOException;
+    }
+
+    public static boolean isBlobPath(String pathOrUrl) {
+        return hashOf(pathOrUrl) != null;
+    }
+
+    // "…/3f/3fa9…c2.png" (or its "3fa9…c2@small.jpg" variant) -> "3fa9…c2"; null for anything that is not a blob
+    private static String hashOf(String pathOrUrl) {
+        if (pathOrUrl == null) {
+            return null;
+        }
+        String name = pathOrUrl.substring(pathOrUrl.lastIndexOf('/') + 1);
+        int end = 0;
+        while (end < name.length() && name.charAt(end) != '.' && name.charAt(end) != '@') {
+            end++;
+        }
+        String hash = name.substring(0, end);
+        return HASH.matcher(hash).matches() ? hash : null;
+    }
+
+    // "<blob>.gz", served by UploadResourceHandler to clients accepting gzip; kept only when clearly smaller
+    private static void precompress(Path blob) {
+        Path gzip = gzipSibling(blob);
+        try {
+            Path temp = Files.createTempFile(blob.getParent(), ".gzip-", ".tmp");
+            try {
+                try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(temp))) {
+                    Files.copy(blob, output);
+                }
+                if (Files.size(temp) < Files.size(blob) * 0.9) {
+                    Files.move(temp, gzip, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not precompress " + blob.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    private static Path gzipSibling(Path blob) {
+        return blob.resolveSibling(blob.getFileName() + ".gz");
+    }
+
+    private static String extension(String originalFilename) {
+        if (originalFilename == null || !originalFilename.contains(".")) {
+            return "";
+        }
+        String extension = originalFilename.substring(originalFilename.lastIndexOf('.')).toLowerCase();
+        return EXTENSION.matcher(extension).matches() ? extension : "";
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Object lockFor(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
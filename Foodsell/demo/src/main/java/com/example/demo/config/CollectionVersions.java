@@ -0,0 +1,60 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Version stamps for the public list endpoints (products, categories, shops), used as ETag/Last-Modified.
+// Each collection has a change counter bumped by the services that write it, so a conditional GET is answered
+// from memory. Stamps also roll over every max-age-ms, which bounds how long a change made through plain SQL
+// can go unnoticed; the boot time is part of the ETag because counters restart at zero.
+@Component
+public class CollectionVersions {
+    public static final String PRODUCTS = "products";
+    public static final String CATEGORIES = "categories";
+    public static final String SHOPS = "shops";
+
+    private final long bootTime = System.currentTimeMillis();
+    private final long maxAgeMs;
+    private final Map<String, Version> versions = new ConcurrentHashMap<>();
+
+    public CollectionVersions(@Value("${http.etag.max-age-ms:300000}") long maxAgeMs) {
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    private final class Version {
+        final AtomicLong counter = new AtomicLong();
+        volatile long changedAt = bootTime;
+    }
+
+    public void bump(String collection) {
+        Version version = version(collection);
+        version.counter.incrementAndGet();
+        version.changedAt = System.currentTimeMillis();
+    }
+
+    // Strong ETag, e.g. "products-lq3x9k-42-5"
+    public String etag(String collection) {
+        return "\"" + collection + "-" + Long.toString(bootTime, 36) + "-" + version(collection).counter.get()
+                + "-" + window(System.currentTimeMillis()) + "\"";
+    }
+
+    // Last change, or the start of the current max-age window if later (millis, whole seconds)
+    public long lastModified(String collection) {
+        long now = System.currentTimeMillis();
+        long windowStart = maxAgeMs > 0 ? window(now) * maxAgeMs : bootTime;
+        long changedAt = Math.max(version(collection).changedAt, windowStart);
+        return changedAt / 1000 * 1000;
+    }
+
+    private long window(long now) {
+        return maxAgeMs > 0 ? now / maxAgeMs : 0;
+    }
+
+    private Version version(String collection) {
+        return versions.computeIfAbsent(collection, name -> new Version());
+    }
+}
@@ -1,20 +1,40 @@
 package com.example.demo.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class FileUploadService {
     
-    private final String uploadDir = "uploads/profile-images/";
-    private final String productImagesDir = "uploads/product-images/";
+    private static final long PROFILE_IMAGE_MAX_BYTES = 5 * 1024 * 1024;
+    private static final long PRODUCT_IMAGE_MAX_BYTES = 10 * 1024 * 1024;
+    
+    private final BlobStore blobStore;
+    private final ImageVariantService imageVariants;
+    private final int maxConcurrentPerUser;
+    
+    // Streaming uploads in progress per user id
+    private final Map<Integer, Integer> activeUploads = new ConcurrentHashMap<>();
+    
+    public FileUploadService(BlobStore blobStore, ImageVariantService imageVariants,
+                             @Value("${upload.streaming.max-concurrent-per-user:2}") int maxConcurrentPerUser) {
+        this.blobStore = blobStore;
+        this.imageVariants = imageVariants;
+        this.maxConcurrentPerUser = maxConcurrentPerUser;
+    }
     
     public String uploadProfileImage(MultipartFile file) throws IOException {
         // Validate file
@@ -29,39 +49,29 @@ public class FileUploadService {
         }
         
         // Check file size (max 5MB)
-        if (file.getSize() > 5 * 1024 * 1024) {
+        if (file.getSize() > PROFILE_IMAGE_MAX_BYTES) {
             throw new RuntimeException("File size too large. Maximum 5MB allowed");
         }
         
-        // Create upload directory if it doesn't exist
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-        
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String fileExtension = "";
-        if (originalFilename != null && originalFilename.contains(".")) {
-            fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        }
-        String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
-        
-        // Save file
-        Path filePath = uploadPath.resolve(uniqueFilename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        
-        System.out.println("✅ Profile image uploaded: " + uniqueFilename);
+        // Stored once per distinct content: re-uploading the same photo reuses the existing file
+        String path = storeImage(file.getInputStream(), PROFILE_IMAGE_MAX_BYTES);
+        System.out.println("✅ Profile image uploaded: " + path);
         
         // Return relative path for storage in database
-        return uploadDir + uniqueFilename;
+        return path;
     }
     
     public void deleteProfileImage(String imagePath) {
         try {
             if (imagePath != null && !imagePath.isEmpty()) {
+                // Blobs are shared: drop this reference, UploadGarbageCollector removes the file once unused
+                if (blobStore.release(imagePath)) {
+                    return;
+                }
+                // Older uploads stored under a UUID name
                 Path path = Paths.get(imagePath);
                 Files.deleteIfExists(path);
+                imageVariants.deleteVariants(path);
                 System.out.println("✅ Profile image deleted: " + imagePath);
             }
         } catch (IOException e) {
@@ -83,44 +93,71 @@ public class FileUploadService {
         }
         
         // Check file size (max 10MB for product images)
-        if (file.getSize() > 10 * 1024 * 1024) {
+        if (file.getSize() > PRODUCT_IMAGE_MAX_BYTES) {
             throw new RuntimeException("File size too large. Maximum 10MB allowed");
         }
         
-        // Create upload directory if it doesn't exist
-        Path uploadPath = Paths.get(productImagesDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-        
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String fileExtension = "";
-        if (originalFilename != null && originalFilename.contains(".")) {
-            fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        }
-        String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
-        
-        // Save file
-        Path filePath = uploadPath.resolve(uniqueFilename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        
-        System.out.println("✅ Product image uploaded: " + uniqueFilename);
+        // Stored once per distinct content: re-uploading the same photo reuses the existing file
+        String path = storeImage(file.getInputStream(), PRODUCT_IMAGE_MAX_BYTES);
+        System.out.println("✅ Product image uploaded: " + path);
         
         // Return relative path for storage in database
-        return productImagesDir + uniqueFilename;
+        return path;
     }
     
+    // Product images are never deleted here: order history keeps showing them (order_summaries.thumbnail_url
+    // copies the URL). Blobs lose a reference; UploadGarbageCollector removes any file no stored URL points at.
     public void deleteProductImage(String imagePath) {
+        if (imagePath != null && !imagePath.isEmpty() && blobStore.release(imagePath)) {
+            System.out.println("✅ Product image released: " + imagePath);
+        }
+    }
+    
+    // ===== Streaming uploads (raw request body, no multipart buffering) =====
+    
+    public String uploadProfileImageStream(int userId, InputStream body, long contentLength) throws IOException {
+        return uploadImageStream(userId, body, contentLength, PROFILE_IMAGE_MAX_BYTES);
+    }
+    
+    public String uploadProductImageStream(int userId, InputStream body, long contentLength) throws IOException {
+        return uploadImageStream(userId, body, contentLength, PRODUCT_IMAGE_MAX_BYTES);
+    }
+    
+    // Rejected before reading anything when the declared length is too large or the user already has
+    // max-concurrent-per-user uploads running; otherwise the body goes straight from the socket to the blob store
+    private String uploadImageStream(int userId, InputStream body, long contentLength, long maxBytes) throws IOException {
+        if (contentLength > maxBytes) {
+            throw new UploadRejectedException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "File size too large. Maximum " + maxBytes / (1024 * 1024) + "MB allowed");
+        }
+        if (activeUploads.merge(userId, 1, Integer::sum) > maxConcurrentPerUser) {
+            releaseUploadSlot(userId);
+            throw new UploadRejectedException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many uploads in progress. Please wait for the current ones to finish");
+        }
         try {
-            if (imagePath != null && !imagePath.isEmpty()) {
-                Path path = Paths.get(imagePath);
-                Files.deleteIfExists(path);
-                System.out.println("✅ Product image deleted: " + imagePath);
+            String path = storeImage(body, maxBytes);
+            System.out.println("✅ Image streamed by user " + userId + ": " + path);
+            return path;
+        } finally {
+            releaseUploadSlot(userId);
+        }
+    }
+    
+    private void releaseUploadSlot(int userId) {
+        activeUploads.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+    
+    // The type comes from the first bytes, not from the client's Content-Type or file name
+    private String storeImage(InputStream input, long maxBytes) throws IOException {
+        try (ReadableByteChannel body = Channels.newChannel(input)) {
+            ByteBuffer head = ImageType.readHead(body);
+            if (!head.hasRemaining()) {
+                throw new UploadRejectedException(HttpStatus.BAD_REQUEST, "File is empty");
             }
-        } catch (IOException e) {
-            System.err.println("❌ Failed to delete product image: " + imagePath);
-            System.err.println("Error: " + e.getMessage());
+            ImageType type = ImageType.sniff(head).orElseThrow(() -> new UploadRejectedException(
+                    HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Invalid file type. Only JPG, PNG, GIF are allowed"));
+            return blobStore.store(head, body, type.getExtension(), maxBytes);
         }
     }
     
@@ -0,0 +1,61 @@
+package com.example.demo.config;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Optional;
+
+// Image formats accepted for uploads, recognized from their first bytes instead of the client's Content-Type
+public enum ImageType {
+    JPEG(".jpg", new int[]{0xFF, 0xD8, 0xFF}),
+    PNG(".png", new int[]{0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A}),
+    GIF(".gif", new int[]{'G', 'I', 'F', '8', -1, 'a'}); // GIF87a / GIF89a
+
+    // Bytes read before deciding; the signatures need far less, the rest is simply the first chunk of the copy
+    public static final int HEAD_BYTES = 8 * 1024;
+
+    private final String extension;
+    private final int[] signature; // -1 matches any byte
+
+    ImageType(String extension, int[] signature) {
+        this.extension = extension;
+        this.signature = signature;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    // Looks at the head without consuming it
+    public static Optional<ImageType> sniff(ByteBuffer head) {
+        for (ImageType type : values()) {
+            if (type.matches(head)) {
+                return Optional.of(type);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean matches(ByteBuffer head) {
+        if (head.remaining() < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (signature[i] >= 0 && (head.get(head.position() + i) & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Reads up to HEAD_BYTES (less only at end of stream); the buffer is returned ready to be read
+    public static ByteBuffer readHead(ReadableByteChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(HEAD_BYTES);
+        // A socket may hand the bytes over in several reads
+        int read;
+        do {
+            read = channel.read(head);
+        } while (read >= 0 && head.hasRemaining());
+        return head.flip();
+    }
+}
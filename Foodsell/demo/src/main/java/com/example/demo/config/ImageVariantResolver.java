@@ -0,0 +1,60 @@
+package com.example.demo.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.web.servlet.resource.ResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+// Serves "/uploads/.../abc.png?size=thumb|small|medium" from the generated "abc@<size>.jpg" variant.
+// Without a size, or while the variant does not exist yet, the original is served (and the variants queued).
+public class ImageVariantResolver implements ResourceResolver {
+
+    private final ImageVariantService imageVariants;
+
+    public ImageVariantResolver(ImageVariantService imageVariants) {
+        this.imageVariants = imageVariants;
+    }
+
+    @Override
+    public Resource resolveResource(HttpServletRequest request, String requestPath,
+                                    List<? extends Resource> locations, ResourceResolverChain chain) {
+        String size = request != null ? request.getParameter("size") : null;
+        if (size == null || !ImageVariantService.SIZES.containsKey(size) || !ImageVariantService.isOriginalImage(requestPath)) {
+            return chain.resolveResource(request, requestPath, locations);
+        }
+        Resource variant = chain.resolveResource(request, ImageVariantService.variantName(requestPath, size), locations);
+        if (variant != null) {
+            return variant;
+        }
+        Resource original = chain.resolveResource(request, requestPath, locations);
+        if (original == null) {
+            return null;
+        }
+        try {
+            File file = original.getFile();
+            imageVariants.generateAsync(file.toPath());
+            // Marked so the handler does not let clients cache the original under the ?size= URL
+            return new PendingVariant(file);
+        } catch (IOException e) {
+            System.err.println("⚠️ Cannot queue image variants for " + requestPath + ": " + e.getMessage());
+            return original;
+        }
+    }
+
+    // Original served in place of a variant that is not generated yet
+    public static class PendingVariant extends FileSystemResource {
+        PendingVariant(File file) {
+            super(file);
+        }
+    }
+
+    @Override
+    public String resolveUrlPath(String resourcePath, List<? extends Resource> locations, ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourcePath, locations);
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.demo.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Resized JPEG variants of uploaded images, written next to the original: "abc.png" -> "abc@thumb.jpg",
+// "abc@small.jpg", "abc@medium.jpg" (longest side 160/320/640 px, never upscaled). Generated on a bounded
+// worker pool after the upload; an image whose variants are missing (queue full, older uploads) is queued
+// again the first time a variant is requested, and the original is served meanwhile.
+@Service
+public class ImageVariantService {
+    public static final Map<String, Integer> SIZES = sizes();
+
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif");
+
+    private final ThreadPoolExecutor executor;
+    private final float quality;
+
+    // Originals currently queued or being processed, so one image is never processed twice at once
+    private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+    // Originals that could not be decoded: not retried on every request for a variant
+    private final Set<Path> undecodable = ConcurrentHashMap.newKeySet();
+
+    public ImageVariantService(@Value("${image.variants.workers:2}") int workers,
+                               @Value("${image.variants.queue-capacity:100}") int queueCapacity,
+                               @Value("${image.variants.jpeg-quality:0.8}") float quality) {
+        this.quality = quality;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private static Map<String, Integer> sizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        sizes.put("thumb", 160);
+        sizes.put("small", 320);
+        sizes.put("medium", 640);
+        return sizes;
+    }
+
+    // An uploaded original (variants carry "@size" in their name and are never resized again)
+    public static boolean isOriginalImage(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 && filename.indexOf('@') < 0
+                && IMAGE_EXTENSIONS.contains(filename.substring(dot + 1).toLowerCase());
+    }
+
+    // "dir/abc.png" + "thumb" -> "dir/abc@thumb.jpg"
+    public static String variantName(String filename, String size) {
+        int dot = filename.lastIndexOf('.');
+        return (dot > 0 ? filename.substring(0, dot) : filename) + "@" + size + ".jpg";
+    }
+
+    // Queue variant generation for an uploaded original; returns false when the queue is full
+    public boolean generateAsync(Path original) {
+        Path key = original.toAbsolutePath().normalize();
+        if (undecodable.contains(key) || !inFlight.add(key)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(key);
+                } catch (Exception e) {
+                    if (undecodable.size() < 10000) {
+                        undecodable.add(key);
+                    }
+                    System.err.println("❌ Image variants failed for " + key.getFileName() + ": " + e.getMessage());
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Back-pressure: skipped for now, queued again on the first request for a variant
+            inFlight.remove(key);
+            return false;
+        }
+    }
+
+    // Decodes the original once (subsampled to about the largest variant) and writes every variant
+    public void generate(Path original) throws IOException {
+        int largest = SIZES.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        BufferedImage source = decode(original, largest);
+        if (source == null) {
+            throw new IOException("Unsupported image");
+        }
+        for (Map.Entry<String, Integer> size : SIZES.entrySet()) {
+            Path target = original.resolveSibling(variantName(original.getFileName().toString(), size.getKey()));
+            writeJpeg(resize(source, size.getValue()), target);
+        }
+    }
+
+    public void deleteVariants(Path original) {
+        for (String size : SIZES.keySet()) {
+            try {
+                Files.deleteIfExists(original.resolveSibling(variantName(original.getFileName().toString(), size)));
+            } catch (IOException e) {
+                System.err.println("❌ Failed to delete image variant: " + e.getMessage());
+            }
+        }
+    }
+
+    // Reads only every n-th pixel of large originals, so a 10 MB photo never needs a full-size raster
+    private static BufferedImage decode(Path original, int targetSize) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, longest / (targetSize * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Fits the image into size x size on a white background (JPEG has no transparency)
+    private static BufferedImage resize(BufferedImage source, int size) {
+        double scale = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        // Halve first while far above the target: one bilinear pass would skip most pixels
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        return draw(current, width, height);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    // Written to a temp file and moved into place, so a half-written variant is never served
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".variant-", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(output);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
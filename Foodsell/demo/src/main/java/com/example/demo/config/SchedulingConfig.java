@@ -0,0 +1,10 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Enables @Scheduled background jobs (e.g. PayOS webhook queue sweeper)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
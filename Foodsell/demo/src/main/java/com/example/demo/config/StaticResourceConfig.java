@@ -1,23 +1,34 @@
 package com.example.demo.config;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+
+import java.util.Map;
 
 @Configuration
-public class StaticResourceConfig implements WebMvcConfigurer {
+public class StaticResourceConfig {
+
+    private final ImageVariantService imageVariants;
+
+    public StaticResourceConfig(ImageVariantService imageVariants) {
+        this.imageVariants = imageVariants;
+    }
 
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Serve uploaded files from the uploads directory
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:./uploads/");
-        
-        // Serve product images
-        registry.addResourceHandler("/uploads/product-images/**")
-                .addResourceLocations("file:./uploads/product-images/");
-        
+    // Serve uploaded files (product images, avatars, complaint images, blobs) from the uploads directory
+    @Bean
+    public UploadResourceHandler uploadResourceHandler() {
         System.out.println("📁 Static resources configured for: ./uploads/");
-        System.out.println("📁 Product images configured for: ./uploads/product-images/");
+        System.out.println("📁 Image sizes (?size=): " + ImageVariantService.SIZES.keySet());
+        return new UploadResourceHandler(imageVariants, "file:./uploads/");
+    }
+
+    // After controllers, before Spring Boot's default "/**" static handler
+    @Bean
+    public SimpleUrlHandlerMapping uploadHandlerMapping(UploadResourceHandler uploadResourceHandler) {
+        SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping(Map.of("/uploads/**", uploadResourceHandler));
+        mapping.setOrder(Ordered.LOWEST_PRECEDENCE - 2);
+        return mapping;
     }
-}
\ No newline at end of file
+}
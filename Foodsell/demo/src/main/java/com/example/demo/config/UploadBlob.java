@@ -0,0 +1,31 @@
+package com.example.demo.config;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+// One stored upload per distinct content (SHA-256), shared by every product/avatar/complaint that uses it
+@Entity
+@Table(name = "upload_blobs")
+@Data
+@NoArgsConstructor
+public class UploadBlob {
+    @Id
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    @Column(name = "path", nullable = false, length = 255)
+    private String path;
+
+    @Column(name = "size")
+    private Long size;
+
+    // Owners (product, avatar, complaint image) that stored this blob's URL; the sweeper keeps the file while it
+    // is above 0, and at 0 while order history still shows the URL
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
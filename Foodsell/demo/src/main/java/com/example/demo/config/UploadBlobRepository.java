@@ -0,0 +1,22 @@
+package com.example.demo.config;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface UploadBlobRepository extends JpaRepository<UploadBlob, String> {
+
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE UploadBlob b SET b.refCount = b.refCount + 1 WHERE b.hash = :hash")
+    int incrementRefCount(@Param("hash") String hash);
+
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE UploadBlob b SET b.refCount = b.refCount - 1 WHERE b.hash = :hash AND b.refCount > 0")
+    int decrementRefCount(@Param("hash") String hash);
+}
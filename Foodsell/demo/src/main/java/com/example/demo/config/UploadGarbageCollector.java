@@ -0,0 +1,417 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Removes uploads nothing points at any more: files left behind by failed requests, replaced images whose
+// delete failed, released blobs (ref_count 0) no stored URL shows any more. Each run walks the next batch-size
+// files of uploads/ (in path order, after a checkpoint kept on disk) and checks them against the stored URLs
+// with one IN query per column; a pass over the whole tree takes as many runs as it needs. Orphans are moved to
+// the quarantine directory (kept quarantine-days, then purged) or deleted, paced by pause-ms and
+// max-removals-per-run so the sweep never competes with request I/O. Files younger than min-age-hours are never
+// touched: an upload is stored before the row pointing at it is saved.
+@Service
+public class UploadGarbageCollector {
+    // Directories under uploads/ written by the application; anything else (hand-placed assets) is left alone
+    private static final Set<String> MANAGED_DIRS = Set.of("blobs", "product-images", "profile-images",
+            "complaint-images");
+    // Every column holding an upload URL
+    private static final String[][] REFERENCES = {
+            {"products", "image_url"},
+            {"users", "profile_image"},
+            {"complaint_images", "image_url"},
+            {"order_summaries", "thumbnail_url"},
+    };
+    // Stored URL forms of one file: full URL (product/profile uploads), relative path, root-relative (complaints)
+    private static final String PUBLIC_URL_PREFIX = "http://localhost:8080/";
+    private static final String CHECKPOINT_FILE = ".checkpoint";
+
+    // Component-wise path order ("a/b" < "a/b/c" < "a/c"): a subtree is one contiguous range, so whole
+    // directories before the checkpoint or after the batch can be skipped without listing them
+    static final Comparator<Path> PATH_ORDER = (a, b) -> {
+        int common = Math.min(a.getNameCount(), b.getNameCount());
+        for (int i = 0; i < common; i++) {
+            int result = a.getName(i).toString().compareTo(b.getName(i).toString());
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(a.getNameCount(), b.getNameCount());
+    };
+
+    private final JdbcTemplate jdbc;
+    private final BlobStore blobStore;
+    private final Path root;
+    private final Path quarantineDir;
+    private final boolean enabled;
+    private final boolean quarantine;
+    private final int batchSize;
+    private final Duration minAge;
+    private final int maxRemovalsPerRun;
+    private final long pauseMs;
+    private final int quarantineDays;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong passes = new AtomicLong();
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong quarantined = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicLong purged = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    private volatile LocalDateTime lastPassCompletedAt;
+
+    public UploadGarbageCollector(JdbcTemplate jdbc, BlobStore blobStore,
+                                  @Value("${upload.dir:uploads}") String root,
+                                  @Value("${upload.gc.quarantine-dir:uploads-quarantine}") String quarantineDir,
+                                  @Value("${upload.gc.enabled:true}") boolean enabled,
+                                  @Value("${upload.gc.mode:quarantine}") String mode,
+                                  @Value("${upload.gc.batch-size:200}") int batchSize,
+                                  @Value("${upload.gc.min-age-hours:24}") long minAgeHours,
+                                  @Value("${upload.gc.max-removals-per-run:100}") int maxRemovalsPerRun,
+                                  @Value("${upload.gc.pause-ms:50}") long pauseMs,
+                                  @Value("${upload.gc.quarantine-days:7}") int quarantineDays) {
+        this.jdbc = jdbc;
+        this.blobStore = blobStore;
+        this.root = Paths.get(root);
+        this.quarantineDir = Paths.get(quarantineDir);
+        this.enabled = enabled;
+        this.quarantine = !"delete".equalsIgnoreCase(mode);
+        // 3 URL forms per file in one IN list: stays under SQL Server's 2100 parameters
+        this.batchSize = Math.max(1, Math.min(batchSize, 600));
+        this.minAge = Duration.ofHours(minAgeHours);
+        this.maxRemovalsPerRun = maxRemovalsPerRun;
+        this.pauseMs = pauseMs;
+        this.quarantineDays = quarantineDays;
+    }
+
+    @Scheduled(fixedDelayString = "${upload.gc.interval-ms:300000}",
+               initialDelayString = "${upload.gc.initial-delay-ms:300000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int removed = sweepOnce(Instant.now());
+            if (removed > 0) {
+                System.out.println("✅ Upload sweep removed " + removed + " orphaned files"
+                        + (quarantine ? " (quarantined)" : ""));
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Upload sweep failed: " + e.getMessage());
+        }
+    }
+
+    // One batch of files after the checkpoint; returns files removed. Ends the pass (checkpoint cleared,
+    // expired quarantine purged) when the batch reaches the end of the tree.
+    public int sweepOnce(Instant now) throws IOException, InterruptedException {
+        runs.incrementAndGet();
+        lastRunAt = LocalDateTime.ofInstant(now, ZoneId.systemDefault());
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        Path checkpoint = readCheckpoint();
+        TreeMap<Path, FileTime> batch = nextBatch(checkpoint);
+        scanned.addAndGet(batch.size());
+
+        Instant cutoff = now.minus(minAge);
+        Set<Path> referenced = referencedAmong(batch.keySet());
+        int removed = 0;
+        boolean endOfTree = batch.size() < batchSize;
+        Path last = checkpoint;
+        for (Map.Entry<Path, FileTime> entry : batch.entrySet()) {
+            Path relative = entry.getKey();
+            if (entry.getValue().toInstant().isBefore(cutoff) && isOrphan(relative, referenced)) {
+                // Budget spent: the rest of the batch is picked up next run
+                if (removed >= maxRemovalsPerRun) {
+                    endOfTree = false;
+                    break;
+                }
+                if (removed > 0 && pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+                if (remove(relative, cutoff, now)) {
+                    removed++;
+                }
+            }
+            last = relative;
+        }
+
+        if (endOfTree) {
+            writeCheckpoint(null);
+            passes.incrementAndGet();
+            lastPassCompletedAt = lastRunAt;
+            purgeQuarantine(now);
+        } else {
+            writeCheckpoint(last);
+        }
+        return removed;
+    }
+
+    // The batch-size files that come first in path order after the checkpoint, with their modification times.
+    // Subtrees entirely before the checkpoint, or after a full batch, are pruned, so a run lists roughly one
+    // batch worth of directories however large the tree.
+    TreeMap<Path, FileTime> nextBatch(Path checkpoint) throws IOException {
+        TreeMap<Path, FileTime> batch = new TreeMap<>(PATH_ORDER);
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                Path relative = root.relativize(dir);
+                if (relative.toString().isEmpty()) {
+                    return FileVisitResult.CONTINUE;
+                }
+                if (!MANAGED_DIRS.contains(relative.getName(0).toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (checkpoint != null && PATH_ORDER.compare(relative, checkpoint) < 0 && !checkpoint.startsWith(relative)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (batch.size() >= batchSize && PATH_ORDER.compare(relative, batch.lastKey()) > 0) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                Path relative = root.relativize(file);
+                if (relative.getNameCount() < 2 || !MANAGED_DIRS.contains(relative.getName(0).toString())
+                        || (checkpoint != null && PATH_ORDER.compare(relative, checkpoint) <= 0)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                batch.put(relative, attrs.lastModifiedTime());
+                if (batch.size() > batchSize) {
+                    batch.pollLastEntry();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            // Deleted while walking (release, variant rewrite): nothing to collect
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return batch;
+    }
+
+    // Stored files among the batch: one IN query per reference column, matching each file's URL forms
+    private Set<Path> referencedAmong(Set<Path> files) {
+        List<String> urls = new ArrayList<>();
+        for (Path file : files) {
+            String name = fileName(file);
+            if (isTemp(file) || name.indexOf('@') >= 0 || name.endsWith(".gz")) {
+                continue; // never stored in a column, judged by their original (isOrphan)
+            }
+            String url = "uploads/" + slashed(file);
+            urls.add(url);
+            urls.add("/" + url);
+            urls.add(PUBLIC_URL_PREFIX + url);
+        }
+        Set<Path> referenced = new HashSet<>();
+        if (urls.isEmpty()) {
+            return referenced;
+        }
+        String placeholders = String.join(",", Collections.nCopies(urls.size(), "?"));
+        for (String[] reference : REFERENCES) {
+            String sql = "SELECT DISTINCT " + reference[1] + " FROM " + reference[0]
+                    + " WHERE " + reference[1] + " IN (" + placeholders + ")";
+            for (String url : jdbc.queryForList(sql, String.class, urls.toArray())) {
+                int start = url.indexOf("uploads/");
+                if (start >= 0) {
+                    referenced.add(Paths.get(url.substring(start + "uploads/".length())));
+                }
+            }
+        }
+        return referenced;
+    }
+
+    private boolean isOrphan(Path relative, Set<Path> referenced) {
+        if (isTemp(relative)) {
+            return true; // write interrupted by a crash; old enough that no writer is still on it
+        }
+        String name = fileName(relative);
+        Path file = root.resolve(relative);
+        // Resized variant or precompressed copy: lives and dies with its original
+        if (name.endsWith(".gz")) {
+            return !Files.exists(file.resolveSibling(name.substring(0, name.length() - 3)));
+        }
+        int at = name.indexOf('@');
+        if (at > 0) {
+            return !originalExists(file, name.substring(0, at));
+        }
+        return !referenced.contains(relative);
+    }
+
+    // Variants are always .jpg; the original keeps the uploaded extension
+    private static boolean originalExists(Path variant, String baseName) {
+        for (String extension : List.of(".jpg", ".jpeg", ".png", ".gif", ".JPG", ".JPEG", ".PNG", ".GIF")) {
+            if (Files.exists(variant.resolveSibling(baseName + extension))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ".tmp" staging directories and ".variant-"/".gzip-" temp files next to the originals
+    private static boolean isTemp(Path relative) {
+        for (Path name : relative) {
+            if (name.toString().equals(".tmp")) {
+                return true;
+            }
+        }
+        String name = fileName(relative);
+        return name.startsWith(".") && name.endsWith(".tmp");
+    }
+
+    private boolean remove(Path relative, Instant cutoff, Instant now) {
+        Path file = root.resolve(relative);
+        try {
+            String name = fileName(relative);
+            boolean removed;
+            if (!isTemp(relative) && name.indexOf('@') < 0 && !name.endsWith(".gz") && BlobStore.isBlobPath(name)) {
+                // Under the blob's lock: skipped if the same content was just uploaded again
+                removed = blobStore.collect(file, cutoff, orphan -> dispose(orphan, relative, now));
+            } else {
+                dispose(file, relative, now);
+                removed = true;
+            }
+            if (removed) {
+                (quarantine ? quarantined : deleted).incrementAndGet();
+            }
+            return removed;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            failed.incrementAndGet();
+            System.err.println("⚠️ Could not remove orphaned upload " + relative + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Quarantine keeps the relative path under a per-day directory, so a file is restored by moving it back
+    private void dispose(Path file, Path relative, Instant now) throws IOException {
+        if (!quarantine) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Path target = quarantineDir.resolve(LocalDate.ofInstant(now, ZoneId.systemDefault()).toString()).resolve(relative);
+        Files.createDirectories(target.getParent());
+        Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Quarantine day directories older than quarantine-days, deleted once per pass
+    private void purgeQuarantine(Instant now) throws IOException {
+        if (!Files.isDirectory(quarantineDir)) {
+            return;
+        }
+        LocalDate oldestKept = LocalDate.ofInstant(now, ZoneId.systemDefault()).minusDays(quarantineDays);
+        List<Path> expired = new ArrayList<>();
+        try (var days = Files.newDirectoryStream(quarantineDir, Files::isDirectory)) {
+            for (Path day : days) {
+                try {
+                    if (LocalDate.parse(day.getFileName().toString()).isBefore(oldestKept)) {
+                        expired.add(day);
+                    }
+                } catch (DateTimeParseException e) {
+                    // not ours
+                }
+            }
+        }
+        for (Path day : expired) {
+            Files.walkFileTree(day, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.deleteIfExists(file);
+                    purged.incrementAndGet();
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                    Files.deleteIfExists(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+    }
+
+    // ===== Checkpoint: relative path of the last file handled, survives restarts =====
+
+    private Path readCheckpoint() throws IOException {
+        Path file = quarantineDir.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        String value = Files.readString(file, StandardCharsets.UTF_8).trim();
+        return value.isEmpty() ? null : Paths.get(value);
+    }
+
+    private void writeCheckpoint(Path checkpoint) throws IOException {
+        Files.createDirectories(quarantineDir);
+        Path file = quarantineDir.resolve(CHECKPOINT_FILE);
+        Path temp = quarantineDir.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(temp, checkpoint != null ? slashed(checkpoint) : "", StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String fileName(Path path) {
+        return path.getFileName().toString();
+    }
+
+    private static String slashed(Path path) {
+        return path.toString().replace('\\', '/');
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("mode", quarantine ? "quarantine" : "delete");
+        metrics.put("runs", runs.get());
+        metrics.put("passes", passes.get());
+        metrics.put("scanned", scanned.get());
+        metrics.put("quarantined", quarantined.get());
+        metrics.put("deleted", deleted.get());
+        metrics.put("purged", purged.get());
+        metrics.put("failed", failed.get());
+        metrics.put("lastRunAt", lastRunAt);
+        metrics.put("lastPassCompletedAt", lastPassCompletedAt);
+        try {
+            Path checkpoint = readCheckpoint();
+            metrics.put("checkpoint", checkpoint != null ? slashed(checkpoint) : null);
+        } catch (IOException e) {
+            metrics.put("checkpoint", null);
+        }
+        return metrics;
+    }
+}
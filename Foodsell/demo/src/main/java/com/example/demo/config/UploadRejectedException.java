@@ -0,0 +1,17 @@
+package com.example.demo.config;
+
+import org.springframework.http.HttpStatus;
+
+// Upload refused before or while it is stored (too large, not an image, too many at once); carries the HTTP status
+public class UploadRejectedException extends RuntimeException {
+    private final HttpStatus status;
+
+    public UploadRejectedException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
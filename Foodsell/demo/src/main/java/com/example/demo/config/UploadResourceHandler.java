@@ -0,0 +1,137 @@
+package com.example.demo.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.http.converter.ResourceRegionHttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.PathResourceResolver;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serves /uploads/**. On top of the standard resource handler (Last-Modified, Range requests):
+// - Cache-Control: content-addressed blobs (and their resized variants) are immutable for a year; older
+//   UUID uploads are cached for a day; an original served while its ?size= variant is pending is not cached.
+// - Strong ETags without reading the file: the blob file name for blobs, mtime-length for the rest.
+// - Precompressed "<file>.gz" siblings (BlobStore writes them for text-like uploads) for gzip clients.
+// - Full files and single ranges from 48 KB up are handed to Tomcat's sendfile (FileChannel.transferTo to
+//   the socket), so the bytes never pass through the JVM heap.
+public class UploadResourceHandler extends ResourceHttpRequestHandler {
+    // Below this, copying through the buffer is cheaper than setting up sendfile (Tomcat DefaultServlet default)
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+    private static final CacheControl UPLOAD = CacheControl.maxAge(1, TimeUnit.DAYS).cachePublic();
+
+    public UploadResourceHandler(ImageVariantService imageVariants, String location) {
+        setLocationValues(List.of(location));
+        setResourceResolvers(List.of(new EncodedResourceResolver(), new ImageVariantResolver(imageVariants),
+                new PathResourceResolver()));
+        setEtagGenerator(UploadResourceHandler::etag);
+        setResourceHttpMessageConverter(new SendfileResourceConverter());
+        setResourceRegionHttpMessageConverter(new SendfileRegionConverter());
+    }
+
+    @Override
+    protected void setHeaders(HttpServletResponse response, Resource resource, MediaType mediaType) throws IOException {
+        super.setHeaders(response, resource, mediaType);
+        CacheControl cacheControl;
+        if (resource instanceof ImageVariantResolver.PendingVariant) {
+            cacheControl = CacheControl.noCache();
+        } else if (BlobStore.isBlobPath(resource.getFilename())) {
+            cacheControl = IMMUTABLE;
+        } else {
+            cacheControl = UPLOAD;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+    }
+
+    // Blob names are derived from the content ("<sha256>@small.jpg"), so they are strong ETags as they stand;
+    // other files use modification time and length, like most static file servers. A precompressed body has
+    // different bytes, so it gets its own ETag ("...-gzip").
+    static String etag(Resource resource) {
+        String filename = resource.getFilename();
+        String encoding = "";
+        if (resource instanceof HttpResource httpResource) {
+            String contentEncoding = httpResource.getResponseHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+            encoding = contentEncoding != null ? "-" + contentEncoding : "";
+        }
+        try {
+            if (BlobStore.isBlobPath(filename)) {
+                return "\"" + filename + encoding + "\"";
+            }
+            return "\"" + Long.toHexString(resource.lastModified()) + "-" + Long.toHexString(resource.contentLength())
+                    + encoding + "\"";
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Sets Tomcat's sendfile attributes for [start, start + length) of a file resource; the container writes the
+    // bytes after the handler returns. false when sendfile is unavailable or not worth it (body written as usual).
+    private static boolean sendfile(Resource resource, long start, long length) throws IOException {
+        if (length < SENDFILE_MIN_BYTES || !resource.isFile()) {
+            return false;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return false;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        if (!HttpMethod.GET.matches(request.getMethod()) || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            return false;
+        }
+        File file = resource.getFile();
+        request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+        request.setAttribute(SENDFILE_START, start);
+        request.setAttribute(SENDFILE_END, start + length);
+        return true;
+    }
+
+    // Full responses (Content-Length is already set from the resource)
+    private static class SendfileResourceConverter extends ResourceHttpMessageConverter {
+        @Override
+        protected void writeContent(Resource resource, HttpOutputMessage outputMessage) throws IOException {
+            if (!sendfile(resource, 0, resource.contentLength())) {
+                super.writeContent(resource, outputMessage);
+            }
+        }
+    }
+
+    // Single-range responses (multi-range requests are rare and stay multipart/byteranges)
+    private static class SendfileRegionConverter extends ResourceRegionHttpMessageConverter {
+        @Override
+        protected void writeResourceRegion(ResourceRegion region, HttpOutputMessage outputMessage) throws IOException {
+            long resourceLength = region.getResource().contentLength();
+            long start = region.getPosition();
+            long end = Math.min(start + region.getCount() - 1, resourceLength - 1);
+            if (!sendfile(region.getResource(), start, end - start + 1)) {
+                super.writeResourceRegion(region, outputMessage);
+                return;
+            }
+            HttpHeaders headers = outputMessage.getHeaders();
+            headers.add(HttpHeaders.CONTENT_RANGE, "bytes " + start + '-' + end + '/' + resourceLength);
+            headers.setContentLength(end - start + 1);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageDTO {
+    private List<OrderDTO> orders;
+    private String nextCursor; // null khi đã hết dữ liệu
+    private boolean hasMore;
+}
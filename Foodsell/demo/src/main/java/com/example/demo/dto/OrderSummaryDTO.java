@@ -4,13 +4,17 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor//để không cần tạo class để sử dụng this.orderId = orderID...
 public class OrderSummaryDTO {
     private Integer orderId;
+    private Integer shopId;
     private BigDecimal totalAmount;
     private String status;
-    private Long itemCount;
+    private Integer itemCount;
+    private String thumbnailUrl; // ảnh sản phẩm đầu tiên trong đơn
+    private LocalDateTime createdAt;
 }
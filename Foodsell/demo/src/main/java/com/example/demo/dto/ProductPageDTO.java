@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageDTO {
+    private List<ProductSummaryDTO> products;
+    private String nextCursor; // null khi đã hết dữ liệu
+    private boolean hasMore;
+}
@@ -0,0 +1,23 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+// Product as shown to customers (listing, catalogue, search): no review/approval fields
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummaryDTO {
+    private int id;
+    private int shopId;
+    private int categoryId;
+    private String name;
+    private String description;
+    private double price;
+    private boolean available;
+    private String imageUrl;
+    private String status;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One typeahead completion: what it is, which record it points to, and the text to show
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+    private String type; // "product", "shop" hoặc "category"
+    private Integer id;
+    private String text;
+}
@@ -5,7 +5,11 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    // Catalogue filters (GET /api/products/catalog): equality columns first, price last for range + sort
+    @Index(name = "IX_products_catalog", columnList = "approval_status, is_available, category_id, price"),
+    @Index(name = "IX_products_catalog_shop", columnList = "approval_status, is_available, shop_id, price")
+})
 @Data
 public class Product {
     @Id
@@ -0,0 +1,189 @@
+package com.example.demo.products;
+
+import com.example.demo.config.CollectionVersions;
+import com.example.demo.dto.ProductSummaryDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+// Read-through cache of product lists: all approved products and approved products by category (customer
+// summaries), products by shop (entities, seller view). Each segment is a bounded LRU; entries remember which
+// product ids they hold, so a product change drops only the lists it was in or now belongs in. The TTL is a
+// safety net for SQL that bypasses the services.
+@Component
+public class ProductCatalogCache {
+    private static final int ALL = 0;
+
+    private final ProductRepository repo;
+    private final CollectionVersions versions;
+    private final long ttlMs;
+    private final Segment<ProductSummaryDTO> all;
+    private final Segment<Product> byShop;
+    private final Segment<ProductSummaryDTO> byCategory;
+
+    // Bumped by every invalidation: a list loaded while it changed is returned but not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ProductCatalogCache(ProductRepository repo, CollectionVersions versions,
+                               @Value("${product.catalog-cache.ttl-ms:300000}") long ttlMs,
+                               @Value("${product.catalog-cache.max-shops:1000}") int maxShops,
+                               @Value("${product.catalog-cache.max-categories:200}") int maxCategories) {
+        this.repo = repo;
+        this.versions = versions;
+        this.ttlMs = ttlMs;
+        this.all = new Segment<>(1, ProductSummaryDTO::getId);
+        this.byShop = new Segment<>(maxShops, Product::getId);
+        this.byCategory = new Segment<>(maxCategories, ProductSummaryDTO::getId);
+    }
+
+    private static final class Entry<T> {
+        final List<T> products;
+        final Set<Integer> ids;
+        final long expiresAt;
+
+        Entry(List<T> products, ToIntFunction<T> idOf, long expiresAt) {
+            this.products = List.copyOf(products);
+            this.ids = new HashSet<>(products.size() * 2);
+            for (T product : products) {
+                ids.add(idOf.applyAsInt(product));
+            }
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // One LRU map of lists (key = shop id / category id); least recently read entries go first when full
+    private final class Segment<T> {
+        private final LinkedHashMap<Integer, Entry<T>> entries;
+        private final ToIntFunction<T> idOf;
+
+        Segment(int maxEntries, ToIntFunction<T> idOf) {
+            this.idOf = idOf;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Entry<T>> eldest) {
+                    if (size() > maxEntries) {
+                        evictions.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        List<T> get(int key, Supplier<List<T>> loader) {
+            long now = System.currentTimeMillis();
+            synchronized (this) {
+                Entry<T> cached = entries.get(key);
+                if (cached != null && cached.expiresAt > now) {
+                    hits.incrementAndGet();
+                    return cached.products;
+                }
+                if (cached != null) {
+                    entries.remove(key);
+                    expirations.incrementAndGet();
+                }
+            }
+            misses.incrementAndGet();
+            long loadedAt = generation.get();
+            Entry<T> loaded = new Entry<>(loader.get(), idOf, now + ttlMs);
+            synchronized (this) {
+                if (generation.get() == loadedAt) {
+                    entries.put(key, loaded);
+                }
+            }
+            return loaded.products;
+        }
+
+        synchronized void invalidate(BiPredicate<Integer, Entry<T>> affected) {
+            entries.entrySet().removeIf(e -> {
+                boolean drop = affected.test(e.getKey(), e.getValue());
+                if (drop) {
+                    invalidations.incrementAndGet();
+                }
+                return drop;
+            });
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+
+    public List<ProductSummaryDTO> getAllApproved(Supplier<List<ProductSummaryDTO>> loader) {
+        return all.get(ALL, loader);
+    }
+
+    public List<Product> getByShop(int shopId, Supplier<List<Product>> loader) {
+        return byShop.get(shopId, loader);
+    }
+
+    public List<ProductSummaryDTO> getApprovedByCategory(int categoryId, Supplier<List<ProductSummaryDTO>> loader) {
+        return byCategory.get(categoryId, loader);
+    }
+
+    // A product was saved (current = its new state) or deleted (current = null)
+    public void productChanged(int productId, Product current) {
+        generation.incrementAndGet();
+        versions.bump(CollectionVersions.PRODUCTS);
+        boolean visible = current != null && "approved".equals(current.getApprovalStatus()) && current.isAvailable();
+        all.invalidate((key, entry) -> visible || entry.ids.contains(productId));
+        // Shop lists hold every approval status (seller view)
+        byShop.invalidate((shopId, entry) -> entry.ids.contains(productId)
+                || (current != null && shopId == current.getShopId()));
+        byCategory.invalidate((categoryId, entry) -> entry.ids.contains(productId)
+                || (visible && categoryId == current.getCategoryId()));
+    }
+
+    // Re-read one product after a change made through plain SQL (admin edits and approvals)
+    public void refresh(int productId) {
+        productChanged(productId, repo.findById(productId).orElse(null));
+    }
+
+    // Products of the shop changed without a known id (admin insert)
+    public void shopChanged(int shopId) {
+        generation.incrementAndGet();
+        versions.bump(CollectionVersions.PRODUCTS);
+        byShop.invalidate((key, entry) -> key == shopId);
+    }
+
+    // Bulk changes (e.g. a seller's shops deleted): drop everything
+    public void clear() {
+        generation.incrementAndGet();
+        versions.bump(CollectionVersions.PRODUCTS);
+        all.invalidate((key, entry) -> true);
+        byShop.invalidate((key, entry) -> true);
+        byCategory.invalidate((key, entry) -> true);
+    }
+
+    public Map<String, Object> getMetrics() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("hits", hitCount);
+        metrics.put("misses", missCount);
+        metrics.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        metrics.put("evictions", evictions.get());
+        metrics.put("expirations", expirations.get());
+        metrics.put("invalidations", invalidations.get());
+        metrics.put("cachedShops", byShop.size());
+        metrics.put("cachedCategories", byCategory.size());
+        metrics.put("allApprovedCached", all.size() > 0);
+        return metrics;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.products;
+
+import lombok.Data;
+
+// Filters, sort order and page of a catalogue request (GET /api/products/catalog)
+@Data
+public class ProductCatalogQuery {
+    private Integer categoryId;
+    private Integer shopId;
+    private Double minPrice;
+    private Double maxPrice;
+    private boolean available = true;
+    private Sort sort = Sort.NEWEST;
+    private int size;
+    private int page;
+    private String cursor; // keyset cursor from the previous page; when present, page is ignored
+
+    public enum Sort {
+        NEWEST("newest"),
+        PRICE_ASC("price_asc"),
+        PRICE_DESC("price_desc"),
+        RATING("rating"); // shop rating, unrated shops last
+
+        private final String value;
+
+        Sort(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static Sort fromValue(String value) {
+            if (value == null || value.isBlank()) {
+                return NEWEST;
+            }
+            for (Sort sort : values()) {
+                if (sort.value.equalsIgnoreCase(value.trim())) {
+                    return sort;
+                }
+            }
+            throw new IllegalArgumentException("Unknown sort: " + value);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.products;
+
+import com.example.demo.dto.ProductSummaryDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Catalogue pages built as JPQL with only the filters that were given, so each combination gets its own plan
+// on IX_products_catalog (approval_status, is_available, category_id, price) instead of one catch-all
+// "(:x IS NULL OR ...)" query. Pages continue from a keyset (sort value, id) or, for shallow pages, an offset.
+@Repository
+public class ProductCatalogRepository {
+
+    private final EntityManager entityManager;
+
+    public ProductCatalogRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // A product with the value it was sorted on (kept for the next cursor)
+    public static class Row {
+        private final ProductSummaryDTO product;
+        private final Number sortValue;
+
+        Row(ProductSummaryDTO product, Number sortValue) {
+            this.product = product;
+            this.sortValue = sortValue;
+        }
+
+        public ProductSummaryDTO getProduct() {
+            return product;
+        }
+
+        public Number getSortValue() {
+            return sortValue;
+        }
+    }
+
+    // afterValue/afterId: last row of the previous page (null for the first page)
+    public List<Row> findPage(ProductCatalogQuery query, Number afterValue, Integer afterId, int offset, int limit) {
+        ProductCatalogQuery.Sort sort = query.getSort();
+        String sortKey = sortKey(sort);
+        Map<String, Object> params = new HashMap<>();
+
+        // Only the columns customers see, plus the sort key
+        StringBuilder jpql = new StringBuilder("SELECT p.id, p.shopId, p.categoryId, p.name, p.description, p.price, ")
+                .append("p.available, p.imageUrl, p.status, p.createdAt, ").append(sortKey).append(" FROM Product p");
+        if (sort == ProductCatalogQuery.Sort.RATING) {
+            jpql.append(", Shop s WHERE s.id = p.shopId AND ");
+        } else {
+            jpql.append(" WHERE ");
+        }
+        jpql.append("p.approvalStatus = 'approved' AND p.available = :available");
+        params.put("available", query.isAvailable());
+        if (query.getCategoryId() != null) {
+            jpql.append(" AND p.categoryId = :categoryId");
+            params.put("categoryId", query.getCategoryId());
+        }
+        if (query.getShopId() != null) {
+            jpql.append(" AND p.shopId = :shopId");
+            params.put("shopId", query.getShopId());
+        }
+        if (query.getMinPrice() != null) {
+            jpql.append(" AND p.price >= :minPrice");
+            params.put("minPrice", query.getMinPrice());
+        }
+        if (query.getMaxPrice() != null) {
+            jpql.append(" AND p.price <= :maxPrice");
+            params.put("maxPrice", query.getMaxPrice());
+        }
+
+        boolean ascending = sort == ProductCatalogQuery.Sort.PRICE_ASC;
+        String after = ascending ? " > " : " < ";
+        if (afterId != null) {
+            if (sort == ProductCatalogQuery.Sort.NEWEST) {
+                jpql.append(" AND p.id < :afterId");
+            } else {
+                jpql.append(" AND (").append(sortKey).append(after).append(":afterValue OR (")
+                        .append(sortKey).append(" = :afterValue AND p.id").append(after).append(":afterId))");
+                params.put("afterValue", afterValue);
+            }
+            params.put("afterId", afterId);
+        }
+
+        String direction = ascending ? " ASC" : " DESC";
+        jpql.append(" ORDER BY ");
+        if (sort != ProductCatalogQuery.Sort.NEWEST) {
+            jpql.append(sortKey).append(direction).append(", ");
+        }
+        jpql.append("p.id").append(direction);
+
+        TypedQuery<Object[]> typed = entityManager.createQuery(jpql.toString(), Object[].class);
+        params.forEach(typed::setParameter);
+        typed.setFirstResult(offset);
+        typed.setMaxResults(limit);
+
+        List<Row> rows = new ArrayList<>();
+        for (Object[] tuple : typed.getResultList()) {
+            ProductSummaryDTO product = new ProductSummaryDTO((Integer) tuple[0], (Integer) tuple[1], (Integer) tuple[2],
+                    (String) tuple[3], (String) tuple[4], (Double) tuple[5], (Boolean) tuple[6], (String) tuple[7],
+                    (String) tuple[8], (LocalDateTime) tuple[9]);
+            rows.add(new Row(product, (Number) tuple[10]));
+        }
+        return rows;
+    }
+
+    private static String sortKey(ProductCatalogQuery.Sort sort) {
+        switch (sort) {
+            case PRICE_ASC:
+            case PRICE_DESC:
+                return "p.price";
+            case RATING:
+                return "COALESCE(s.rating, 0)";
+            default:
+                return "p.id";
+        }
+    }
+}
@@ -2,12 +2,24 @@ package com.example.demo.products;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import com.example.demo.config.CollectionVersions;
 import com.example.demo.config.FileUploadService;
+import com.example.demo.config.UploadRejectedException;
+import com.example.demo.Users.User;
+import com.example.demo.shops.ShopService;
+import jakarta.servlet.http.HttpServletRequest;
 import com.example.demo.dto.ApiResponse;
+import com.example.demo.dto.ProductPageDTO;
+import com.example.demo.dto.ProductSummaryDTO;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -18,15 +30,63 @@ public class ProductController {
     
     @Autowired
     private FileUploadService fileUploadService;
+    
+    @Autowired
+    private CollectionVersions versions;
+    
+    @Autowired
+    private ShopService shopService;
 
     public ProductController(ProductService service) {
         this.service = service;
     }
 
-    // GET: Lấy tất cả sản phẩm
+    // GET: Lấy tất cả sản phẩm (304 nếu client đã có phiên bản mới nhất)
     @GetMapping
-    public List<Product> getAllProducts() {
-        return service.getAllProducts();
+    public ResponseEntity<List<ProductSummaryDTO>> getAllProducts(WebRequest request) {
+        if (request.checkNotModified(versions.etag(CollectionVersions.PRODUCTS),
+                                     versions.lastModified(CollectionVersions.PRODUCTS))) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(service.getAllProducts());
+    }
+
+    // GET: Danh mục sản phẩm có phân trang, lọc và sắp xếp
+    // sort: newest | price_asc | price_desc | rating; tiếp trang sau bằng cursor = nextCursor
+    @GetMapping("/catalog")
+    public ProductPageDTO getCatalog(@RequestParam(required = false) Integer categoryId,
+                                     @RequestParam(required = false) Integer shopId,
+                                     @RequestParam(required = false) Double minPrice,
+                                     @RequestParam(required = false) Double maxPrice,
+                                     @RequestParam(defaultValue = "true") boolean available,
+                                     @RequestParam(required = false) String sort,
+                                     @RequestParam(defaultValue = "0") int page,
+                                     @RequestParam(defaultValue = "20") int size,
+                                     @RequestParam(required = false) String cursor) {
+        ProductCatalogQuery query = new ProductCatalogQuery();
+        query.setCategoryId(categoryId);
+        query.setShopId(shopId);
+        query.setMinPrice(minPrice);
+        query.setMaxPrice(maxPrice);
+        query.setAvailable(available);
+        query.setSort(ProductCatalogQuery.Sort.fromValue(sort));
+        query.setPage(page);
+        query.setSize(size);
+        query.setCursor(cursor);
+        return service.getCatalogPage(query);
+    }
+
+    // GET: Lấy sản phẩm đã duyệt theo danh mục
+    @GetMapping("/category/{categoryId}")
+    public List<ProductSummaryDTO> getProductsByCategory(@PathVariable int categoryId) {
+        return service.getApprovedProductsByCategory(categoryId);
+    }
+
+    // GET: Thống kê cache danh mục sản phẩm (hit ratio, evictions)
+    @GetMapping("/cache/metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getCatalogCacheMetrics() {
+        return service.getCatalogCacheMetrics();
     }
 
     // GET: Lấy sản phẩm theo shop ID
@@ -39,10 +99,11 @@ public class ProductController {
             return ResponseEntity.status(500).body(ApiResponse.error("Lỗi khi lấy sản phẩm theo shop: " + e.getMessage()));
         }
     }
-    // GET: Tìm kiếm sản phẩm
+    // GET: Tìm kiếm sản phẩm (kết quả xếp hạng, tối đa limit sản phẩm)
     @GetMapping("/search")
-    public List<Product> searchProducts(@RequestParam String keyword) {
-        return service.searchProducts(keyword);
+    public List<ProductSummaryDTO> searchProducts(@RequestParam String keyword,
+                                        @RequestParam(defaultValue = "50") int limit) {
+        return service.searchProducts(keyword, Math.max(1, Math.min(limit, 200)));
     }
 
     // POST: Tạo mới sản phẩm
@@ -125,6 +186,56 @@ public class ProductController {
         }
     }
     
+    // PUT: Upload ảnh sản phẩm dạng stream (raw image body, no multipart buffering; type read from the first bytes)
+    @PutMapping(value = "/{id}/image", consumes = {"image/*", "application/octet-stream"})
+    public ResponseEntity<ApiResponse<Product>> streamProductImage(
+            @PathVariable int id,
+            HttpServletRequest request,
+            Authentication authentication) {
+        // Concurrent uploads are limited per user
+        if (authentication == null || !(authentication.getPrincipal() instanceof User)) {
+            return ResponseEntity.status(401).body(ApiResponse.error("Authentication required"));
+        }
+        User user = (User) authentication.getPrincipal();
+        try {
+            Optional<Product> productOpt = service.getProductById(id);
+            if (productOpt.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            // Checked before the body is read: only the shop's seller (or an admin) may replace its image
+            if (!canEditProduct(user, productOpt.get())) {
+                return ResponseEntity.status(403).body(ApiResponse.error("You can only change images of your own products"));
+            }
+            String filePath = fileUploadService.uploadProductImageStream(user.getId(), request.getInputStream(),
+                    request.getContentLengthLong());
+            
+            Product product = productOpt.get();
+            String previousImage = product.getImageUrl();
+            product.setImageUrl("http://localhost:8080/" + filePath);
+            Product updatedProduct = service.updateProduct(product);
+            
+            if (previousImage != null && !previousImage.isEmpty()) {
+                fileUploadService.deleteProductImage(previousImage.replace("http://localhost:8080/", ""));
+            }
+            System.out.println("✅ Product image streamed for product ID: " + id + ", path: " + filePath);
+            return ResponseEntity.ok(ApiResponse.success(updatedProduct, "Product image updated successfully"));
+        } catch (UploadRejectedException e) {
+            return ResponseEntity.status(e.getStatus()).body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            System.err.println("❌ Product image upload error: " + e.getMessage());
+            return ResponseEntity.status(500).body(ApiResponse.error("Failed to upload product image: " + e.getMessage()));
+        }
+    }
+    
+    private boolean canEditProduct(User user, Product product) {
+        if ("admin".equalsIgnoreCase(user.getRole())) {
+            return true;
+        }
+        return shopService.getShopById(product.getShopId())
+                .map(shop -> user.getId() != null && shop.getSellerId() == user.getId())
+                .orElse(false);
+    }
+    
     // DELETE: Xóa ảnh sản phẩm
     @DeleteMapping("/{id}/remove-image")
     public ResponseEntity<ApiResponse<Product>> removeProductImage(@PathVariable int id) {
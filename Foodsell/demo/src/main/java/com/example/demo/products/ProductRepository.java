@@ -1,8 +1,12 @@
 
 package com.example.demo.products;
 
+import java.util.Collection;
 import java.util.List;
 
+import com.example.demo.dto.ProductSummaryDTO;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -25,6 +29,33 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
     @Query("SELECT p FROM Product p WHERE p.approvalStatus = 'approved' AND p.available = true")
     List<Product> findAllApprovedProducts();
     
+    // Customer listings select only the displayed columns (no review/approval fields, no managed entities)
+    @Query("SELECT new com.example.demo.dto.ProductSummaryDTO(p.id, p.shopId, p.categoryId, p.name, p.description, " +
+           "p.price, p.available, p.imageUrl, p.status, p.createdAt) FROM Product p " +
+           "WHERE p.approvalStatus = 'approved' AND p.available = true")
+    List<ProductSummaryDTO> findAllApprovedSummaries();
+    
+    @Query("SELECT new com.example.demo.dto.ProductSummaryDTO(p.id, p.shopId, p.categoryId, p.name, p.description, " +
+           "p.price, p.available, p.imageUrl, p.status, p.createdAt) FROM Product p " +
+           "WHERE p.categoryId = :categoryId AND p.approvalStatus = 'approved' AND p.available = true")
+    List<ProductSummaryDTO> findApprovedSummariesByCategoryId(@Param("categoryId") int categoryId);
+    
+    @Query("SELECT new com.example.demo.dto.ProductSummaryDTO(p.id, p.shopId, p.categoryId, p.name, p.description, " +
+           "p.price, p.available, p.imageUrl, p.status, p.createdAt) FROM Product p " +
+           "WHERE p.id IN :ids AND p.approvalStatus = 'approved' AND p.available = true")
+    List<ProductSummaryDTO> findApprovedSummariesByIds(@Param("ids") Collection<Integer> ids);
+    
+    @Query("SELECT new com.example.demo.dto.ProductSummaryDTO(p.id, p.shopId, p.categoryId, p.name, p.description, " +
+           "p.price, p.available, p.imageUrl, p.status, p.createdAt) FROM Product p " +
+           "WHERE (LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
+           "AND p.approvalStatus = 'approved' AND p.available = true")
+    List<ProductSummaryDTO> searchProductSummaries(@Param("keyword") String keyword);
+    
+    // Approved products in id order after the given id (keyset batches for the search index rebuild)
+    @Query("SELECT p FROM Product p WHERE p.approvalStatus = 'approved' AND p.available = true AND p.id > :afterId ORDER BY p.id ASC")
+    List<Product> findApprovedProductsAfterId(@Param("afterId") int afterId, Pageable pageable);
+    
     // Tìm kiếm theo tên hoặc mô tả (chỉ sản phẩm đã duyệt)
     @Query("SELECT p FROM Product p WHERE " +
            "(LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
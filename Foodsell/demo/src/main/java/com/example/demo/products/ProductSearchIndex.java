@@ -0,0 +1,513 @@
+package com.example.demo.products;
+
+import com.example.demo.search.SuggestionIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory inverted index over approved, available products (name + description).
+// Text is folded (Vietnamese diacritics removed, đ -> d, lower case) so "pho bo" finds "Phở bò"; the last query
+// word is matched as a prefix for search-as-you-type. All words must match; name hits rank above description hits.
+// Kept current by ProductService / admin approvals, with a periodic full rebuild for out-of-band SQL changes.
+@Component
+public class ProductSearchIndex {
+    private static final int REBUILD_BATCH_SIZE = 5000;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_SCORED = 10000;
+    private static final double NAME_TIER_BONUS = 1000;
+
+    private final ProductRepository repo;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Product name completions are kept in step with this index
+    @Autowired(required = false)
+    private SuggestionIndex suggestionIndex;
+
+    private Segment segment = new Segment();
+    private volatile boolean ready = false;
+    // Products changed while a rebuild was reading the table; re-applied after the swap
+    private Set<Integer> changedDuringRebuild;
+
+    public ProductSearchIndex(ProductRepository repo) {
+        this.repo = repo;
+    }
+
+    // Term dictionaries (sorted for prefix lookups): words of the name, words found only in the description,
+    // and the first word of the name
+    private static final class Segment {
+        final NavigableMap<String, Postings> nameTerms = new TreeMap<>();
+        final NavigableMap<String, Postings> descriptionTerms = new TreeMap<>();
+        final NavigableMap<String, Postings> leadingTerms = new TreeMap<>();
+        // Indexed by product id (dense identity values); null when the product is not indexed
+        Doc[] docs = new Doc[1024];
+        int size = 0;
+        int maxId = 0;
+
+        void add(int id, Doc doc) {
+            remove(id);
+            if (id >= docs.length) {
+                docs = Arrays.copyOf(docs, Math.max(id + 1, docs.length * 2));
+            }
+            docs[id] = doc;
+            size++;
+            maxId = Math.max(maxId, id);
+            for (int i = 0; i < doc.terms.length; i++) {
+                // Share the dictionary's String instance instead of keeping a copy per product
+                doc.terms[i] = postings(i < doc.nameCount ? nameTerms : descriptionTerms, doc.terms[i], id);
+            }
+            if (doc.nameCount > 0) {
+                postings(leadingTerms, doc.terms[0], id);
+            }
+        }
+
+        private String postings(NavigableMap<String, Postings> terms, String term, int id) {
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(term, postings);
+            } else {
+                term = terms.ceilingKey(term);
+            }
+            postings.add(id, maxId);
+            return term;
+        }
+
+        void remove(int id) {
+            Doc old = id < docs.length ? docs[id] : null;
+            if (old == null) {
+                return;
+            }
+            docs[id] = null;
+            size--;
+            for (int i = 0; i < old.terms.length; i++) {
+                removePosting(i < old.nameCount ? nameTerms : descriptionTerms, old.terms[i], id);
+            }
+            if (old.nameCount > 0) {
+                removePosting(leadingTerms, old.terms[0], id);
+            }
+        }
+
+        private static void removePosting(NavigableMap<String, Postings> terms, String term, int id) {
+            Postings postings = terms.get(term);
+            if (postings != null && postings.remove(id) && postings.size == 0) {
+                terms.remove(term);
+            }
+        }
+    }
+
+    // Folded words of one product: terms[0..nameCount) come from the name, the rest only from the description
+    private static final class Doc {
+        final String[] terms;
+        final int nameCount;
+
+        Doc(String[] terms, int nameCount) {
+            this.terms = terms;
+            this.nameCount = nameCount;
+        }
+    }
+
+    // Sorted product ids containing one term. Frequent terms also keep a bitmap (once it is no bigger than the
+    // id array), so OR-ing them into a query costs a word-wise copy instead of one bit per product.
+    private static final class Postings {
+        int[] ids = new int[2];
+        int size = 0;
+        BitSet bits;
+
+        void add(int id, int maxId) {
+            // Ids mostly arrive in increasing order: append without searching
+            if (size > 0 && ids[size - 1] >= id) {
+                int pos = Arrays.binarySearch(ids, 0, size, id);
+                if (pos >= 0) {
+                    return;
+                }
+                insertAt(-pos - 1, id);
+            } else {
+                insertAt(size, id);
+            }
+            if (bits != null) {
+                bits.set(id);
+            } else if (size * 32L > maxId && size >= 64) {
+                bits = new BitSet(maxId + 1);
+                for (int i = 0; i < size; i++) {
+                    bits.set(ids[i]);
+                }
+            }
+        }
+
+        private void insertAt(int pos, int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            if (bits != null) {
+                bits.clear(id);
+            }
+            return true;
+        }
+
+        void addTo(BitSet target) {
+            if (bits != null) {
+                target.or(bits);
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                target.set(ids[i]);
+            }
+        }
+    }
+
+    // Matches of one query word, per field: exact word and (for the prefix word) any word starting with it
+    private static final class WordMatches {
+        final BitSet nameExact;
+        final BitSet namePrefix;
+        final BitSet descriptionExact;
+        final BitSet descriptionPrefix;
+
+        WordMatches(BitSet nameExact, BitSet namePrefix, BitSet descriptionExact, BitSet descriptionPrefix) {
+            this.nameExact = nameExact;
+            this.namePrefix = namePrefix;
+            this.descriptionExact = descriptionExact;
+            this.descriptionPrefix = descriptionPrefix;
+        }
+
+        // Exact name word 10, name prefix 6, description word 3, description prefix 2
+        int score(int id) {
+            if (nameExact.get(id)) {
+                return 10;
+            }
+            if (namePrefix.get(id)) {
+                return 6;
+            }
+            if (descriptionExact.get(id)) {
+                return 3;
+            }
+            return descriptionPrefix.get(id) ? 2 : 0;
+        }
+    }
+
+    private static final class Hit {
+        final int id;
+        final double score;
+
+        Hit(int id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return segment.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids of the best matching products, best first.
+    // Products with every word in the name rank above the rest; within a tier by score, then newest first.
+    // Very broad queries only score the newest MAX_SCORED candidates of a tier.
+    public List<Integer> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        // Trailing space means the last word is complete: no prefix expansion
+        boolean prefixLast = !Character.isWhitespace(query.charAt(query.length() - 1))
+                && words.get(words.size() - 1).length() >= MIN_PREFIX_LENGTH;
+
+        lock.readLock().lock();
+        try {
+            WordMatches[] matches = new WordMatches[words.size()];
+            BitSet candidates = null;
+            BitSet nameTier = null;
+            for (int i = 0; i < words.size(); i++) {
+                boolean prefix = prefixLast && i == words.size() - 1;
+                matches[i] = match(words.get(i), prefix);
+                BitSet anywhere = (BitSet) matches[i].namePrefix.clone();
+                anywhere.or(matches[i].descriptionPrefix);
+                if (candidates == null) {
+                    candidates = anywhere;
+                    nameTier = (BitSet) matches[i].namePrefix.clone();
+                } else {
+                    candidates.and(anywhere);
+                    nameTier.and(matches[i].namePrefix);
+                }
+                if (candidates.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            candidates.andNot(nameTier);
+            BitSet leading = matching(segment.leadingTerms, words.get(0), prefixLast && words.size() == 1);
+
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, ProductSearchIndex::compareHits);
+            collect(nameTier, NAME_TIER_BONUS, matches, leading, limit, top);
+            // Name-tier hits always outrank the rest: only look further if there is room left
+            if (top.size() < limit) {
+                collect(candidates, 0, matches, leading, limit, top);
+            }
+            Integer[] ranked = new Integer[top.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = top.poll().id;
+            }
+            return Arrays.asList(ranked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Score one tier, newest products first, keeping the best `limit` hits in a min-heap.
+    // +5 when the name starts with the first query word, slight preference for shorter names.
+    private void collect(BitSet tier, double bonus, WordMatches[] matches, BitSet leading, int limit,
+                         PriorityQueue<Hit> top) {
+        int scored = 0;
+        for (int id = tier.previousSetBit(segment.maxId); id >= 0 && scored < MAX_SCORED; id = tier.previousSetBit(id - 1)) {
+            double score = bonus;
+            for (WordMatches match : matches) {
+                score += match.score(id);
+            }
+            if (leading.get(id)) {
+                score += 5;
+            }
+            score += 1.0 / (1 + segment.docs[id].nameCount);
+            scored++;
+            if (top.size() < limit) {
+                top.add(new Hit(id, score));
+            } else if (score > top.peek().score) {
+                top.poll();
+                top.add(new Hit(id, score));
+            }
+        }
+    }
+
+    // Worst hit first (lower score, then older product)
+    private static int compareHits(Hit a, Hit b) {
+        int byScore = Double.compare(a.score, b.score);
+        return byScore != 0 ? byScore : Integer.compare(a.id, b.id);
+    }
+
+    private WordMatches match(String word, boolean prefix) {
+        BitSet nameExact = matching(segment.nameTerms, word, false);
+        BitSet descriptionExact = matching(segment.descriptionTerms, word, false);
+        if (!prefix) {
+            return new WordMatches(nameExact, nameExact, descriptionExact, descriptionExact);
+        }
+        return new WordMatches(nameExact, matching(segment.nameTerms, word, true),
+                descriptionExact, matching(segment.descriptionTerms, word, true));
+    }
+
+    private BitSet matching(NavigableMap<String, Postings> terms, String word, boolean prefix) {
+        BitSet matches = new BitSet(segment.maxId + 1);
+        if (!prefix) {
+            Postings postings = terms.get(word);
+            if (postings != null) {
+                postings.addTo(matches);
+            }
+            return matches;
+        }
+        for (Postings postings : terms.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+            postings.addTo(matches);
+        }
+        return matches;
+    }
+
+    // Index the product if customers can see it, otherwise drop it
+    public void update(Product product) {
+        boolean searchable = "approved".equals(product.getApprovalStatus()) && product.isAvailable();
+        Doc doc = searchable ? toDoc(product.getName(), product.getDescription()) : null;
+        lock.writeLock().lock();
+        try {
+            if (doc != null) {
+                segment.add(product.getId(), doc);
+            } else {
+                segment.remove(product.getId());
+            }
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(product.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (suggestionIndex != null) {
+            if (doc != null) {
+                suggestionIndex.putProduct(product.getId(), product.getName());
+            } else {
+                suggestionIndex.removeProduct(product.getId());
+            }
+        }
+    }
+
+    public void remove(int productId) {
+        lock.writeLock().lock();
+        try {
+            segment.remove(productId);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(productId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (suggestionIndex != null) {
+            suggestionIndex.removeProduct(productId);
+        }
+    }
+
+    // Re-read one product after a change made through plain SQL (admin JDBC paths)
+    public void refresh(int productId) {
+        Product product = repo.findById(productId).orElse(null);
+        if (product != null) {
+            update(product);
+        } else {
+            remove(productId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // Safety net for bulk SQL deletes/updates that bypass the services (e.g. deleting a seller's shops)
+    @Scheduled(fixedDelayString = "${product.search.rebuild-interval-ms:1800000}",
+               initialDelayString = "${product.search.rebuild-interval-ms:1800000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    // Build a fresh segment from the table in id batches, then swap it in; searches keep using the old one meanwhile
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = ConcurrentHashMap.newKeySet();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Segment fresh = new Segment();
+            SuggestionIndex.ProductRebuild freshSuggestions =
+                    suggestionIndex != null ? suggestionIndex.startProductRebuild() : null;
+            int lastId = 0;
+            while (true) {
+                List<Product> batch = repo.findApprovedProductsAfterId(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (Product product : batch) {
+                    fresh.add(product.getId(), toDoc(product.getName(), product.getDescription()));
+                    if (freshSuggestions != null) {
+                        freshSuggestions.add(product.getId(), product.getName());
+                    }
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+
+            if (freshSuggestions != null) {
+                freshSuggestions.finish();
+            }
+            Set<Integer> changed;
+            lock.writeLock().lock();
+            try {
+                segment = fresh;
+                changed = changedDuringRebuild;
+                changedDuringRebuild = null;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            for (Integer id : changed) {
+                refresh(id);
+            }
+            System.out.println("🔍 Product search index built: " + fresh.size + " products in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            System.err.println("❌ Product search index rebuild failed: " + e.getMessage());
+        }
+    }
+
+    private static Doc toDoc(String name, String description) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(name));
+        int nameCount = terms.size();
+        terms.addAll(tokenize(description));
+        return new Doc(terms.toArray(new String[0]), nameCount);
+    }
+
+    // Folded words in order of appearance (duplicates kept out)
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String folded = fold(text);
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String word = folded.substring(start, i);
+                if (!words.contains(word)) {
+                    words.add(word);
+                }
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    // "Phở Bò Đặc Biệt" -> "pho bo dac biet"
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (c == 'đ' || c == 'Đ') {
+                c = 'd';
+            }
+            folded.append(Character.toLowerCase(c));
+        }
+        return folded.toString();
+    }
+}
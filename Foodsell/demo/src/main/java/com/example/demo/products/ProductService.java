@@ -1,20 +1,46 @@
 package com.example.demo.products;
 
+import com.example.demo.dto.ProductPageDTO;
+import com.example.demo.dto.ProductSummaryDTO;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class ProductService {
     private final ProductRepository repo;
+    private final ProductSearchIndex searchIndex;
+    private final ProductCatalogRepository catalogRepo;
+    private final ProductCatalogCache catalogCache;
 
-    public ProductService(ProductRepository repo) {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    // Offset pages are only for jumping a few pages in; deeper than this, follow nextCursor
+    private static final int MAX_OFFSET = 1000;
+
+    public ProductService(ProductRepository repo, ProductSearchIndex searchIndex, ProductCatalogRepository catalogRepo,
+                          ProductCatalogCache catalogCache) {
         this.repo = repo;
+        this.searchIndex = searchIndex;
+        this.catalogRepo = catalogRepo;
+        this.catalogCache = catalogCache;
     }
 
     // Get all approved products for customers
-    public List<Product> getAllProducts() {
-        return repo.findAllApprovedProducts(); // Only show approved products
+    public List<ProductSummaryDTO> getAllProducts() {
+        return catalogCache.getAllApproved(repo::findAllApprovedSummaries); // Only show approved products
+    }
+
+    // Approved products of one category (cached per category)
+    public List<ProductSummaryDTO> getApprovedProductsByCategory(int categoryId) {
+        return catalogCache.getApprovedByCategory(categoryId, () -> repo.findApprovedSummariesByCategoryId(categoryId));
     }
     
     // Get all products including pending/rejected (for admin/seller)
@@ -22,38 +48,117 @@ public class ProductService {
         return repo.findAll();
     }
     
-    public List<Product> searchProducts(String keyword) {
-        System.out.println("🔍 Searching for keyword: '" + keyword + "'");
-        
-        // Chỉ search trong sản phẩm đã duyệt
-        List<Product> results = repo.searchProducts(keyword);
-        
-        System.out.println("📦 searchProducts found: " + results.size() + " approved products");
-        
+    // Ranked search over approved products via the in-memory index (LIKE scan only until the index is built)
+    public List<ProductSummaryDTO> searchProducts(String keyword, int limit) {
+        if (!searchIndex.isReady()) {
+            List<ProductSummaryDTO> results = repo.searchProductSummaries(keyword);
+            return results.size() > limit ? results.subList(0, limit) : results;
+        }
+        List<Integer> ids = searchIndex.search(keyword, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // Load the hits by primary key and keep the index's ranking
+        Map<Integer, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            rank.put(ids.get(i), i);
+        }
+        List<ProductSummaryDTO> results = repo.findApprovedSummariesByIds(ids);
+        results.sort(Comparator.comparingInt(p -> rank.get(p.getId())));
         return results;
     }
     
+    // One catalogue page: filtered and sorted in the database, continued by keyset cursor (or a shallow page number)
+    @Transactional(readOnly = true)
+    public ProductPageDTO getCatalogPage(ProductCatalogQuery query) {
+        int pageSize = query.getSize() <= 0 ? DEFAULT_PAGE_SIZE : Math.min(query.getSize(), MAX_PAGE_SIZE);
+        if (query.getMinPrice() != null && query.getMaxPrice() != null && query.getMinPrice() > query.getMaxPrice()) {
+            throw new IllegalArgumentException("minPrice must not be greater than maxPrice");
+        }
+
+        Number afterValue = null;
+        Integer afterId = null;
+        int offset = 0;
+        if (query.getCursor() != null && !query.getCursor().isBlank()) {
+            String[] key = decodeCursor(query.getCursor(), query.getSort());
+            afterId = Integer.valueOf(key[2]);
+            afterValue = query.getSort() == ProductCatalogQuery.Sort.RATING ? (Number) Float.valueOf(key[1])
+                    : query.getSort() == ProductCatalogQuery.Sort.NEWEST ? null : Double.valueOf(key[1]);
+        } else {
+            offset = Math.max(0, query.getPage()) * pageSize;
+            if (offset > MAX_OFFSET) {
+                throw new IllegalArgumentException("Page too deep, use nextCursor to continue");
+            }
+        }
+
+        // Fetch one extra row to know whether another page exists
+        List<ProductCatalogRepository.Row> rows = catalogRepo.findPage(query, afterValue, afterId, offset, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        List<ProductSummaryDTO> products = new ArrayList<>(rows.size());
+        for (ProductCatalogRepository.Row row : rows) {
+            products.add(row.getProduct());
+        }
+        String nextCursor = hasMore ? encodeCursor(query.getSort(), rows.get(rows.size() - 1)) : null;
+        return new ProductPageDTO(products, nextCursor, hasMore);
+    }
+
+    // Cursor = base64url("sort|sortValue|id") of the last product on the previous page
+    private static String encodeCursor(ProductCatalogQuery.Sort sort, ProductCatalogRepository.Row last) {
+        String raw = sort.getValue() + "|" + last.getSortValue() + "|" + last.getProduct().getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor, ProductCatalogQuery.Sort sort) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            // A cursor only continues the sort order it was issued for
+            if (key.length != 3 || !key[0].equals(sort.getValue())) {
+                throw new IllegalArgumentException();
+            }
+            Integer.parseInt(key[2]);
+            Double.parseDouble(key[1]);
+            return key;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
     public List<Product> getProductsByShopId(int shopId) {
-        return repo.findByShopId(shopId);
+        return catalogCache.getByShop(shopId, () -> repo.findByShopId(shopId));
     }
     public Product createProduct(Product product) {
         // Set approval status to 'pending' for new products
         if (product.getApprovalStatus() == null || product.getApprovalStatus().isEmpty()) {
             product.setApprovalStatus("pending");
         }
-        return repo.save(product);
+        Product saved = repo.save(product);
+        searchIndex.update(saved);
+        catalogCache.productChanged(saved.getId(), saved);
+        return saved;
     }
     
+    public Map<String, Object> getCatalogCacheMetrics() {
+        return catalogCache.getMetrics();
+    }
+
     public Optional<Product> getProductById(int id) {
         return repo.findById(id);
     }
     
     public Product updateProduct(Product product) {
-        return repo.save(product);
+        Product saved = repo.save(product);
+        searchIndex.update(saved);
+        catalogCache.productChanged(saved.getId(), saved);
+        return saved;
     }
 
     public void deleteProductById(int id) {
         repo.deleteById(id);
+        searchIndex.remove(id);
+        catalogCache.productChanged(id, null);
     }
     
     public String seedData() {
@@ -76,8 +181,9 @@ public class ProductService {
             };
             
             for (Product product : sampleProducts) {
-                repo.save(product);
+                searchIndex.update(repo.save(product));
             }
+            catalogCache.clear();
             
             return "Đã tạo " + sampleProducts.length + " sản phẩm mẫu thành công!";
         } catch (Exception e) {
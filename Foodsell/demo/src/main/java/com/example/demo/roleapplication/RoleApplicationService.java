@@ -3,7 +3,7 @@ package com.example.demo.roleapplication;
 import com.example.demo.Users.User;
 import com.example.demo.Users.UserRepository;
 import com.example.demo.shops.Shop;
-import com.example.demo.shops.ShopRepository;
+import com.example.demo.shops.ShopService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.HashMap;
@@ -17,14 +17,14 @@ public class RoleApplicationService {
     
     private final RoleApplicationRepository roleApplicationRepository;
     private final UserRepository userRepository;
-    private final ShopRepository shopRepository;
+    private final ShopService shopService;
 
     public RoleApplicationService(RoleApplicationRepository roleApplicationRepository, 
                                  UserRepository userRepository,
-                                 ShopRepository shopRepository) {
+                                 ShopService shopService) {
         this.roleApplicationRepository = roleApplicationRepository;
         this.userRepository = userRepository;
-        this.shopRepository = shopRepository;
+        this.shopService = shopService;
     }
 
     // Create new role application
@@ -106,7 +106,8 @@ public class RoleApplicationService {
             shop.setAddress(application.getShopAddress());
             shop.setDescription(application.getShopDescription());
             shop.setOpeningHours("9:00 AM - 10:00 PM"); // Default
-            shopRepository.save(shop);
+            // Through ShopService so the shop is also added to search suggestions
+            shopService.createShop(shop);
         }
     }
 
@@ -0,0 +1,24 @@
+package com.example.demo.search;
+
+import com.example.demo.dto.SuggestionDTO;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "http://localhost:3000")
+public class SearchController {
+    private final SuggestionIndex suggestionIndex;
+
+    public SearchController(SuggestionIndex suggestionIndex) {
+        this.suggestionIndex = suggestionIndex;
+    }
+
+    // GET: Gợi ý khi gõ (sản phẩm, shop, danh mục)
+    @GetMapping("/suggest")
+    public List<SuggestionDTO> suggest(@RequestParam String q,
+                                       @RequestParam(defaultValue = "8") int limit) {
+        return suggestionIndex.suggest(q, Math.max(1, Math.min(limit, 20)));
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.demo.search;
+
+import com.example.demo.categories.Category;
+import com.example.demo.categories.CategoryRepository;
+import com.example.demo.dto.SuggestionDTO;
+import com.example.demo.products.ProductSearchIndex;
+import com.example.demo.shops.Shop;
+import com.example.demo.shops.ShopRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Typeahead completions for product, shop and category names.
+// Names are folded like the product search index ("pho" completes "Phở bò"). Each section keeps a sorted key
+// map: a query is one range scan. Completions matching the start of a name come before those matching a later
+// word ("bo" -> "Bò kho" before "Phở bò"). Products with the same name share one completion.
+// Product entries are fed by ProductSearchIndex; shops and categories by their services.
+@Component
+public class SuggestionIndex {
+    public static final String PRODUCT = "product";
+    public static final String SHOP = "shop";
+    public static final String CATEGORY = "category";
+
+    // Words of a name a completion can start at ("pho bo tai" is also found by "bo" and "tai")
+    private static final int MAX_WORD_STARTS = 3;
+    private static final char SEPARATOR = '\u0000';
+
+    private final ShopRepository shopRepository;
+    private final CategoryRepository categoryRepository;
+
+    private volatile Section products = new Section(PRODUCT);
+    private volatile Section shops = new Section(SHOP);
+    private volatile Section categories = new Section(CATEGORY);
+
+    public SuggestionIndex(ShopRepository shopRepository, CategoryRepository categoryRepository) {
+        this.shopRepository = shopRepository;
+        this.categoryRepository = categoryRepository;
+    }
+
+    // One suggestion type. Reads are lock-free (concurrent maps); writers synchronize on the section.
+    private static final class Section {
+        final String type;
+        // "<folded name>\0" -> completion, and "<folded name from word i>\0<folded name>" -> completion
+        final ConcurrentSkipListMap<String, Completion> nameStarts = new ConcurrentSkipListMap<>();
+        final ConcurrentSkipListMap<String, Completion> wordStarts = new ConcurrentSkipListMap<>();
+        final Map<String, Completion> byFoldedName = new ConcurrentHashMap<>();
+        final Map<Integer, String> foldedNameById = new ConcurrentHashMap<>();
+
+        Section(String type) {
+            this.type = type;
+        }
+
+        synchronized void put(int id, String name) {
+            remove(id);
+            List<String> words = ProductSearchIndex.tokenize(name);
+            if (words.isEmpty()) {
+                return;
+            }
+            String folded = String.join(" ", words);
+            foldedNameById.put(id, folded);
+            Completion completion = byFoldedName.get(folded);
+            if (completion == null) {
+                completion = new Completion(name.trim());
+                byFoldedName.put(folded, completion);
+                nameStarts.put(folded + SEPARATOR, completion);
+                for (int i = 1; i < Math.min(words.size(), MAX_WORD_STARTS); i++) {
+                    wordStarts.put(String.join(" ", words.subList(i, words.size())) + SEPARATOR + folded, completion);
+                }
+            }
+            completion.ids.add(id);
+        }
+
+        synchronized void remove(int id) {
+            String folded = foldedNameById.remove(id);
+            if (folded == null) {
+                return;
+            }
+            Completion completion = byFoldedName.get(folded);
+            if (completion == null || !completion.ids.remove(id) || !completion.ids.isEmpty()) {
+                return;
+            }
+            byFoldedName.remove(folded);
+            nameStarts.remove(folded + SEPARATOR);
+            String[] words = folded.split(" ");
+            for (int i = 1; i < Math.min(words.length, MAX_WORD_STARTS); i++) {
+                wordStarts.remove(String.join(" ", Arrays.asList(words).subList(i, words.length)) + SEPARATOR + folded);
+            }
+        }
+
+        // Up to `limit` completions whose name (or a later word of it) starts with the folded query
+        void collect(String query, int limit, List<Candidate> out) {
+            Set<Completion> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            scan(nameStarts, query, limit, true, seen, out);
+            scan(wordStarts, query, limit, false, seen, out);
+        }
+
+        private void scan(ConcurrentSkipListMap<String, Completion> keys, String query, int limit, boolean nameStart,
+                          Set<Completion> seen, List<Candidate> out) {
+            for (Completion completion : keys.subMap(query, query + Character.MAX_VALUE).values()) {
+                if (seen.size() >= limit) {
+                    return;
+                }
+                if (!completion.ids.isEmpty() && seen.add(completion)) {
+                    out.add(new Candidate(type, completion, nameStart));
+                }
+            }
+        }
+    }
+
+    // Display text (first name seen) and the ids carrying that name
+    private static final class Completion {
+        final String text;
+        final Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+        Completion(String text) {
+            this.text = text;
+        }
+    }
+
+    private static final class Candidate {
+        final String type;
+        final Completion completion;
+        final boolean nameStart;
+
+        Candidate(String type, Completion completion, boolean nameStart) {
+            this.type = type;
+            this.completion = completion;
+            this.nameStart = nameStart;
+        }
+    }
+
+    // Ranking: name-start matches first, then categories, shops, products, then shorter names
+    private static final Comparator<Candidate> RANKING = Comparator
+            .comparing((Candidate c) -> !c.nameStart)
+            .thenComparingInt(c -> typeRank(c.type))
+            .thenComparingInt(c -> c.completion.text.length())
+            .thenComparing(c -> c.completion.text);
+
+    private static int typeRank(String type) {
+        return CATEGORY.equals(type) ? 0 : SHOP.equals(type) ? 1 : 2;
+    }
+
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        List<String> words = ProductSearchIndex.tokenize(query);
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String folded = String.join(" ", words);
+        // "pho " completes words after "pho", not "phong"
+        if (Character.isWhitespace(query.charAt(query.length() - 1))) {
+            folded += " ";
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        categories.collect(folded, limit, candidates);
+        shops.collect(folded, limit, candidates);
+        products.collect(folded, limit, candidates);
+        candidates.sort(RANKING);
+
+        List<SuggestionDTO> suggestions = new ArrayList<>(Math.min(limit, candidates.size()));
+        for (Candidate candidate : candidates) {
+            if (suggestions.size() >= limit) {
+                break;
+            }
+            Integer id = candidate.completion.ids.stream().findFirst().orElse(null);
+            suggestions.add(new SuggestionDTO(candidate.type, id, candidate.completion.text));
+        }
+        return suggestions;
+    }
+
+    // ===== Incremental updates =====
+
+    public void putProduct(int id, String name) {
+        products.put(id, name);
+    }
+
+    public void removeProduct(int id) {
+        products.remove(id);
+    }
+
+    // Banned shops are not suggested
+    public void putShop(Shop shop) {
+        if (Boolean.TRUE.equals(shop.getIsBanned()) || shop.getName() == null) {
+            shops.remove(shop.getId());
+        } else {
+            shops.put(shop.getId(), shop.getName());
+        }
+    }
+
+    public void removeShop(int id) {
+        shops.remove(id);
+    }
+
+    // Re-read one shop after a change made through plain SQL (admin ban/unban)
+    public void refreshShop(int id) {
+        Shop shop = shopRepository.findById(id).orElse(null);
+        if (shop != null) {
+            putShop(shop);
+        } else {
+            removeShop(id);
+        }
+    }
+
+    public void putCategory(Category category) {
+        if (category.getId() != null && category.getName() != null) {
+            categories.put(category.getId(), category.getName());
+        }
+    }
+
+    public void removeCategory(int id) {
+        categories.remove(id);
+    }
+
+    // ===== Full rebuilds =====
+
+    // Product names in bulk (ProductSearchIndex rebuild): filled off to the side, then swapped in
+    public ProductRebuild startProductRebuild() {
+        return new ProductRebuild();
+    }
+
+    public final class ProductRebuild {
+        private final Section fresh = new Section(PRODUCT);
+
+        public void add(int id, String name) {
+            fresh.put(id, name);
+        }
+
+        public void finish() {
+            products = fresh;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildShopsAndCategories();
+    }
+
+    // Safety net for shop/category changes made through plain SQL (e.g. banning a seller bans their shops)
+    @Scheduled(fixedDelayString = "${search.suggest.rebuild-interval-ms:600000}",
+               initialDelayString = "${search.suggest.rebuild-interval-ms:600000}")
+    public void rebuildShopsAndCategories() {
+        try {
+            Section freshShops = new Section(SHOP);
+            for (Shop shop : shopRepository.findAll()) {
+                if (!Boolean.TRUE.equals(shop.getIsBanned()) && shop.getName() != null) {
+                    freshShops.put(shop.getId(), shop.getName());
+                }
+            }
+            Section freshCategories = new Section(CATEGORY);
+            for (Category category : categoryRepository.findAll()) {
+                if (category.getName() != null) {
+                    freshCategories.put(category.getId(), category.getName());
+                }
+            }
+            shops = freshShops;
+            categories = freshCategories;
+        } catch (Exception e) {
+            System.err.println("❌ Suggestion index rebuild failed: " + e.getMessage());
+        }
+    }
+}
@@ -5,18 +5,18 @@ import com.example.demo.entity.ComplaintImage;
 import com.example.demo.entity.ComplaintResponse;
 import com.example.demo.repository.ComplaintRepository;
 import com.example.demo.admin.AdminRepository;
+import com.example.demo.config.BlobStore;
+import com.example.demo.config.CollectionVersions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
 
 @Service
 public class ComplaintService {
@@ -29,8 +29,13 @@ public class ComplaintService {
     
     @Autowired
     private org.springframework.jdbc.core.JdbcTemplate jdbc;
+    
+    @Autowired
+    private CollectionVersions versions;
+    
+    @Autowired
+    private BlobStore blobStore;
 
-    private static final String UPLOAD_DIR = "uploads/complaint-images/";
 
     // Create new complaint
     @Transactional
@@ -164,6 +169,7 @@ public class ComplaintService {
                         
                         // Also unban the user account
                         adminRepository.setUserBanned(complaint.getComplainantId().intValue(), false);
+                        versions.bump(CollectionVersions.SHOPS);
                         System.out.println("✅ User " + complaint.getComplainantId() + " also unbanned");
                     }
                 } catch (Exception e) {
@@ -203,27 +209,13 @@ public class ComplaintService {
     public ComplaintImage uploadImage(Long complaintId, MultipartFile file, String imageType, String description) throws IOException {
         Complaint complaint = getComplaintById(complaintId);
         
-        // Create upload directory if not exists
-        Path uploadPath = Paths.get(UPLOAD_DIR);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-        
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String extension = originalFilename != null && originalFilename.contains(".") 
-            ? originalFilename.substring(originalFilename.lastIndexOf(".")) 
-            : "";
-        String filename = UUID.randomUUID().toString() + extension;
-        
-        // Save file
-        Path filePath = uploadPath.resolve(filename);
-        Files.copy(file.getInputStream(), filePath);
+        // Content-addressed: the same screenshot attached twice is stored once
+        String path = blobStore.store(file);
         
         // Create image record
         ComplaintImage image = new ComplaintImage();
         image.setComplaint(complaint);
-        image.setImageUrl("/uploads/complaint-images/" + filename);
+        image.setImageUrl("/" + path);
         image.setImageType(imageType != null ? imageType : "evidence");
         image.setDescription(description);
         image.setUploadedAt(LocalDateTime.now());
@@ -263,5 +255,14 @@ public class ComplaintService {
         }
         
         complaintRepository.delete(complaint);
+        
+        // Drop the image references once the delete is committed
+        List<String> imageUrls = complaint.getImages().stream().map(ComplaintImage::getImageUrl).toList();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                imageUrls.forEach(blobStore::release);
+            }
+        });
     }
 }
@@ -1,8 +1,11 @@
 package com.example.demo.shops;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import com.example.demo.config.CollectionVersions;
 import com.example.demo.dto.ApiResponse;
 
 import java.util.List;
@@ -14,10 +17,12 @@ import java.util.Optional;
 public class ShopController {
     
     private final ShopService shopService;
+    private final CollectionVersions versions;
     
     @Autowired
-    public ShopController(ShopService shopService) {
+    public ShopController(ShopService shopService, CollectionVersions versions) {
         this.shopService = shopService;
+        this.versions = versions;
     }
     
     // GET: Test endpoint
@@ -26,12 +31,17 @@ public class ShopController {
         return "ShopController is working!";
     }
     
-    // GET: Lấy tất cả shop
+    // GET: Lấy tất cả shop (304 nếu client đã có phiên bản mới nhất)
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Shop>>> getAllShops() {
+    public ResponseEntity<ApiResponse<List<Shop>>> getAllShops(WebRequest request) {
+        if (request.checkNotModified(versions.etag(CollectionVersions.SHOPS),
+                                     versions.lastModified(CollectionVersions.SHOPS))) {
+            return null;
+        }
         try {
             List<Shop> shops = shopService.getAllShops();
-            return ResponseEntity.ok(ApiResponse.success(shops, "Lấy danh sách shop thành công"));
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                    .body(ApiResponse.success(shops, "Lấy danh sách shop thành công"));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(ApiResponse.error("Lỗi khi lấy danh sách shop: " + e.getMessage()));
         }
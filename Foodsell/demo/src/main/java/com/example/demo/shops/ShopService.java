@@ -1,5 +1,7 @@
 package com.example.demo.shops;
 
+import com.example.demo.config.CollectionVersions;
+import com.example.demo.search.SuggestionIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,6 +14,12 @@ public class ShopService {
     @Autowired
     private ShopRepository shopRepository;
     
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+    
+    @Autowired
+    private CollectionVersions versions;
+    
     // Lấy tất cả shop
     public List<Shop> getAllShops() {
         return shopRepository.findAll();
@@ -44,7 +52,10 @@ public class ShopService {
     
     // Tạo shop mới
     public Shop createShop(Shop shop) {
-        return shopRepository.save(shop);
+        Shop saved = shopRepository.save(shop);
+        suggestionIndex.putShop(saved);
+        versions.bump(CollectionVersions.SHOPS);
+        return saved;
     }
     
     // Cập nhật shop
@@ -78,7 +89,10 @@ public class ShopService {
             System.out.println("Name: " + existingShop.getName());
             System.out.println("Address: " + existingShop.getAddress());
             
-            return shopRepository.save(existingShop);
+            Shop saved = shopRepository.save(existingShop);
+            suggestionIndex.putShop(saved);
+            versions.bump(CollectionVersions.SHOPS);
+            return saved;
         } catch (Exception e) {
             System.err.println("Error updating shop: " + e.getMessage());
             e.printStackTrace();
@@ -91,12 +105,16 @@ public class ShopService {
         Shop shop = shopRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Shop not found with id: " + id));
         shop.setRating(rating != null ? rating.floatValue() : null);
-        return shopRepository.save(shop);
+        Shop saved = shopRepository.save(shop);
+        versions.bump(CollectionVersions.SHOPS);
+        return saved;
     }
     
     // Xóa shop
     public void deleteShop(int id) {
         shopRepository.deleteById(id);
+        suggestionIndex.removeShop(id);
+        versions.bump(CollectionVersions.SHOPS);
     }
     
     // Đếm số lượng shop
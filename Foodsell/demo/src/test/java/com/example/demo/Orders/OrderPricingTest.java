@@ -0,0 +1,38 @@
+package com.example.demo.Orders;
+
+import com.example.demo.products.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OrderPricingTest {
+
+    private static final BigDecimal SHIPPING_FEE = new BigDecimal("15000.00");
+
+    @Test
+    void pricesFromProductsWithExactDecimals() {
+        Product product = new Product(1, 1, "Trà sữa", "", 0.1 + 0.2, true, null, "active");
+        product.setId(5);
+        List<OrderPricing.CartLine> lines = OrderPricing.parseCart(
+                List.of(Map.of("productId", 5, "quantity", 3, "price", 1)));
+
+        OrderPricing.PricedCart cart = OrderPricing.price(lines, Map.of(5, product), SHIPPING_FEE);
+
+        assertEquals(new BigDecimal("0.30"), cart.getLines().get(0).getUnitPrice());
+        assertEquals(new BigDecimal("0.90"), cart.getSubtotal());
+        assertEquals(new BigDecimal("15000.90"), cart.getTotal());
+    }
+
+    @Test
+    void rejectsUnknownProductsAndInvalidQuantities() {
+        List<OrderPricing.CartLine> lines = OrderPricing.parseCart(List.of(Map.of("productId", 9, "quantity", 1)));
+        assertThrows(IllegalArgumentException.class, () -> OrderPricing.price(lines, Map.of(), SHIPPING_FEE));
+        assertThrows(IllegalArgumentException.class,
+                () -> OrderPricing.parseCart(List.of(Map.of("productId", 9, "quantity", 0))));
+    }
+}
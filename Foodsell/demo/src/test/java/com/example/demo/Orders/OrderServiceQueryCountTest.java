@@ -0,0 +1,106 @@
+package com.example.demo.Orders;
+
+import com.example.demo.dto.OrderDTO;
+import com.example.demo.dto.OrderPageDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import com.example.testslice.H2JpaTest;
+import com.example.testslice.H2Slice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@H2JpaTest(H2Slice.Orders.class)
+class OrderServiceQueryCountTest {
+
+    private static final int ORDER_COUNT = 50;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void seedOrders() {
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Order order = new Order(i % 2 + 1, 7, 1, new BigDecimal("100000"), "pending", "seed " + i);
+            Order saved = orderRepository.save(order);
+            orderItemRepository.save(new OrderItem(saved.getId(), 1, 2, new BigDecimal("25000")));
+            orderItemRepository.save(new OrderItem(saved.getId(), 2, 1, new BigDecimal("50000")));
+        }
+        orderRepository.flush();
+        orderItemRepository.flush();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getAllOrdersUsesConstantNumberOfQueries() {
+        List<OrderDTO> orders = orderService.getAllOrders();
+
+        assertEquals(ORDER_COUNT, orders.size());
+        orders.forEach(order -> assertEquals(2, order.getOrderItems().size()));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getOrdersByBuyerIdUsesConstantNumberOfQueries() {
+        List<OrderDTO> orders = orderService.getOrdersByBuyerId(1);
+
+        assertEquals(ORDER_COUNT / 2, orders.size());
+        orders.forEach(order -> assertEquals(2, order.getOrderItems().size()));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getOrdersByShopIdUsesConstantNumberOfQueries() {
+        List<OrderDTO> orders = orderService.getOrdersByShopId(7);
+
+        assertEquals(ORDER_COUNT, orders.size());
+        orders.forEach(order -> assertEquals(2, order.getOrderItems().size()));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getOrdersPageWalksAllOrdersWithConstantQueriesPerPage() {
+        Set<Integer> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            statistics.clear();
+            OrderPageDTO page = orderService.getOrdersPage(cursor, 20);
+            assertEquals(2, statistics.getPrepareStatementCount());
+            page.getOrders().forEach(order -> assertEquals(2, order.getOrderItems().size()));
+            page.getOrders().forEach(order -> seen.add(order.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+            if (!page.isHasMore()) {
+                assertNull(cursor);
+            }
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(ORDER_COUNT, seen.size());
+        assertFalse(seen.contains(null));
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.demo.Orders;
+
+import com.example.demo.dto.OrderSummaryDTO;
+import com.example.demo.products.Product;
+import com.example.demo.products.ProductRepository;
+import com.example.testslice.H2JpaTest;
+import com.example.testslice.H2Slice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@H2JpaTest(H2Slice.Orders.class)
+class OrderStatusTransitionTest {
+
+    private static final int PAYOS_ORDER_CODE = 123456;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Integer orderId;
+
+    @BeforeEach
+    void seedOrder() {
+        Order order = new Order(1, 7, 1, new BigDecimal("100000"), "pending", "PayOS:" + PAYOS_ORDER_CODE);
+        order.setPayosOrderCode(PAYOS_ORDER_CODE);
+        orderId = orderRepository.saveAndFlush(order).getId();
+    }
+
+    @Test
+    void followsLifecycleAndRejectsInvalidTransitions() {
+        assertTrue(orderService.processPaymentResult(PAYOS_ORDER_CODE, "PAID", 100000, "tx-1", "t1"));
+        assertEquals("paid", status());
+
+        assertEquals("INVALID_TRANSITION", orderService.updateOrderStatus(orderId, "delivered").get("error"));
+        assertEquals(true, orderService.updateOrderStatus(orderId, "confirmed").get("success"));
+        assertEquals(true, orderService.updateOrderStatus(orderId, "shipping").get("success"));
+        assertEquals(true, orderService.updateOrderStatus(orderId, "delivered").get("success"));
+        assertEquals("delivered", status());
+
+        // Only the buyer completes it
+        assertEquals("NOT_FOUND", orderService.completeOrder(orderId, 2).get("error"));
+        assertEquals(true, orderService.completeOrder(orderId, 1).get("success"));
+        assertEquals("completed", status());
+    }
+
+    @Test
+    void unpaidPayOSOrderCannotBeConfirmedButCashOnDeliveryCan() {
+        Map<String, Object> unpaid = orderService.updateOrderStatus(orderId, "confirmed");
+        assertEquals("PAYMENT_REQUIRED", unpaid.get("error"));
+        assertEquals("pending", status());
+
+        Integer codOrderId = orderRepository.saveAndFlush(
+                new Order(1, 7, 1, new BigDecimal("50000"), "pending", "Payment Method: cod")).getId();
+        assertEquals(true, orderService.updateOrderStatus(codOrderId, "confirmed").get("success"));
+        assertEquals("confirmed", orderRepository.findStatusById(codOrderId).orElseThrow());
+    }
+
+    @Test
+    void buyerCannotCompleteAnOrderBeforeDelivery() {
+        assertEquals("INVALID_TRANSITION", orderService.completeOrder(orderId, 1).get("error"));
+        assertEquals("pending", status());
+    }
+
+    @Test
+    void lateCancelWebhookDoesNotOverwriteSellerProgress() {
+        assertTrue(orderService.processPaymentResult(PAYOS_ORDER_CODE, "PAID", 100000, "tx-1", "t1"));
+        orderService.updateOrderStatus(orderId, "confirmed");
+        orderService.updateOrderStatus(orderId, "shipping");
+
+        assertTrue(orderService.processPaymentResult(PAYOS_ORDER_CODE, "CANCELLED", 100000, "tx-2", "t2"));
+
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        assertEquals("shipping", order.getStatus());
+        assertTrue(order.getNotes().contains("Payment: CANCELLED"));
+    }
+
+    @Test
+    void reportsMissingOrdersAndUnknownStatuses() {
+        Map<String, Object> missing = orderService.updateOrderStatus(orderId + 1000, "confirmed");
+        assertEquals("NOT_FOUND", missing.get("error"));
+        assertEquals("INVALID_STATUS", orderService.updateOrderStatus(orderId, "teleported").get("error"));
+    }
+
+    @Test
+    void summaryProjectionFollowsCreateAndStatusChanges() {
+        Product product = new Product(1, 1, "Phở bò", "", 45000, true, "/uploads/pho.jpg", "active");
+        productRepository.saveAndFlush(product);
+        List<Map<String, Object>> cart = List.of(
+                Map.of("productId", product.getId(), "quantity", 2, "price", 45000),
+                Map.of("productId", product.getId(), "quantity", 1, "price", 45000));
+        // Cash on delivery (no PayOS order code), so the seller can confirm it straight away
+        Map<String, Object> created = orderService.createOrder(null, null, cart, null, 135000);
+        Integer createdId = (Integer) created.get("orderId");
+
+        orderService.updateOrderStatus(createdId, "confirmed");
+
+        OrderSummaryDTO summary = orderService.getOrderSummariesByBuyerId(1).stream()
+                .filter(s -> s.getOrderId().equals(createdId))
+                .findFirst().orElseThrow();
+        assertEquals(2, summary.getItemCount());
+        assertEquals("confirmed", summary.getStatus());
+        assertEquals("/uploads/pho.jpg", summary.getThumbnailUrl());
+    }
+
+    @Test
+    void paymentWebhookMovesAnOrderCreatedByTheCheckoutPageToPaid() {
+        Product product = new Product(1, 1, "Bún chả", "", 50000, true, null, "active");
+        productRepository.saveAndFlush(product);
+        // Same body CheckoutPage sends for a PayOS order
+        Map<String, Object> created = orderService.createOrder(
+                Map.of("recipientName", "An", "recipientPhone", "0900000000", "addressText", "1 Hàng Bài"),
+                Map.of("method", "payos"),
+                List.of(Map.of("productId", product.getId(), "quantity", 1, "price", 50000)),
+                888, 65000);
+        Integer createdId = (Integer) created.get("orderId");
+        assertEquals("pending", orderRepository.findStatusById(createdId).orElseThrow());
+
+        assertTrue(orderService.processPaymentResult(888, "PAID", 65000, "tx-3", "t3"));
+        assertEquals("paid", orderRepository.findStatusById(createdId).orElseThrow());
+    }
+
+    @Test
+    void ordersStoredAsPendingPaymentStillFollowPaymentWebhooks() {
+        Order legacy = new Order(1, 7, 1, new BigDecimal("100000"), "pending_payment", "PayOS:999");
+        legacy.setPayosOrderCode(999);
+        Integer legacyId = orderRepository.saveAndFlush(legacy).getId();
+
+        assertTrue(orderService.processPaymentResult(999, "CANCELLED", 100000, "tx-4", "t4"));
+        assertEquals("cancelled", orderRepository.findStatusById(legacyId).orElseThrow());
+    }
+
+    @Test
+    void underpaidPaymentDoesNotMarkTheOrderPaid() {
+        assertTrue(orderService.processPaymentResult(PAYOS_ORDER_CODE, "PAID", 50000, "tx-5", "t5"));
+
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        assertEquals("pending", order.getStatus());
+        assertTrue(order.getNotes().contains("Amount 50000 does not match total"));
+    }
+
+    @Test
+    void rejectsEmptyCartsAndPayOSOrdersPricedDifferentlyByTheClient() {
+        Product product = new Product(1, 1, "Cơm tấm", "", 40000, true, null, "active");
+        productRepository.saveAndFlush(product);
+        List<Map<String, Object>> cart = List.of(Map.of("productId", product.getId(), "quantity", 1, "price", 1000));
+        long before = orderRepository.count();
+
+        // Admin add-order form: no items, just a typed total
+        assertEquals("EMPTY_CART", orderService.createOrder(null, null, List.of(), null, 200000).get("error"));
+        // The PayOS link was created for 16000, the items cost 40000 + 15000 shipping
+        Map<String, Object> mismatch = orderService.createOrder(null, null, cart, 4242, 16000);
+        assertEquals("TOTAL_MISMATCH", mismatch.get("error"));
+        assertEquals(0, new BigDecimal("55000").compareTo((BigDecimal) mismatch.get("totalAmount")));
+        assertEquals(before, orderRepository.count());
+
+        // Cash on delivery: charged at the server price, the client total is only a hint
+        Map<String, Object> cod = orderService.createOrder(null, null, cart, null, 16000);
+        assertEquals(true, cod.get("success"));
+        assertEquals(0, new BigDecimal("55000").compareTo((BigDecimal) cod.get("totalAmount")));
+    }
+
+    private String status() {
+        return orderRepository.findStatusById(orderId).orElseThrow();
+    }
+}
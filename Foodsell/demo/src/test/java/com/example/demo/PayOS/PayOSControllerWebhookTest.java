@@ -0,0 +1,69 @@
+package com.example.demo.PayOS;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PayOSControllerWebhookTest {
+
+    private static final String DATA = "{\"orderCode\":123456,\"status\":\"PAID\",\"amount\":65000}";
+
+    private final PayOSService payOSService = mock(PayOSService.class);
+    private final PayOSWebhookInbox webhookInbox = mock(PayOSWebhookInbox.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        PayOSController controller = new PayOSController();
+        ReflectionTestUtils.setField(controller, "payOSService", payOSService);
+        ReflectionTestUtils.setField(controller, "webhookInbox", webhookInbox);
+        ReflectionTestUtils.setField(controller, "asyncWebhook", true);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void asyncWebhookWithoutSignatureIsRejectedBeforeEnqueueing() throws Exception {
+        mockMvc.perform(post("/api/payos/webhook").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"data\":" + DATA + "}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(webhookInbox);
+    }
+
+    @Test
+    void asyncWebhookWithBadSignatureIsRejectedBeforeEnqueueing() throws Exception {
+        when(payOSService.verifyChecksum(anyMap(), eq("forged"))).thenReturn(false);
+
+        mockMvc.perform(post("/api/payos/webhook").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"data\":" + DATA + ",\"signature\":\"forged\"}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(webhookInbox);
+    }
+
+    @Test
+    void asyncWebhookWithValidSignatureIsEnqueued() throws Exception {
+        when(payOSService.verifyChecksum(anyMap(), eq("valid"))).thenReturn(true);
+        when(webhookInbox.accept(eq(123456), eq("PAID"), eq(65000), any(), any()))
+                .thenReturn(PayOSWebhookInbox.Outcome.QUEUED);
+
+        mockMvc.perform(post("/api/payos/webhook").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"data\":" + DATA + ",\"signature\":\"valid\"}"))
+                .andExpect(status().isOk());
+
+        verify(webhookInbox).accept(eq(123456), eq("PAID"), eq(65000), any(), any());
+    }
+}
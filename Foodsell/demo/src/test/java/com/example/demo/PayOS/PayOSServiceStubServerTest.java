@@ -0,0 +1,176 @@
+package com.example.demo.PayOS;
+
+import com.example.demo.Orders.Order;
+import com.example.demo.Orders.OrderRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// PayOSService against a local stub of the PayOS API: deadlines, database fallback and the circuit breaker
+class PayOSServiceStubServerTest {
+
+    private static final long QUERY_DEADLINE_MS = 2000;
+
+    private HttpServer server;
+    private ConnectionProvider connectionProvider;
+    private PayOSService payOSService;
+    private PayOSCircuitBreaker circuitBreaker;
+    private PaymentStatusCache statusCache;
+    private final AtomicInteger failingCalls = new AtomicInteger();
+    private final AtomicInteger paidCalls = new AtomicInteger();
+    private WebClient webClient;
+    private OrderRepository orderRepository;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v2/payment-requests/1", exchange -> {
+            paidCalls.incrementAndGet();
+            respond(exchange, 200, "{\"code\":\"00\",\"data\":{\"orderCode\":1,\"status\":\"PAID\"}}");
+        });
+        server.createContext("/v2/payment-requests/2", exchange -> {
+            sleep(6000);
+            respond(exchange, 200, "{\"code\":\"00\",\"data\":{}}");
+        });
+        server.createContext("/v2/payment-requests/3", exchange -> {
+            failingCalls.incrementAndGet();
+            respond(exchange, 503, "{\"code\":\"99\",\"desc\":\"unavailable\"}");
+        });
+        server.start();
+
+        orderRepository = mock(OrderRepository.class);
+        Order order = new Order(1, 1, 1, new BigDecimal("50000"), "paid", "PayOS:2");
+        when(orderRepository.findByPayosOrderCode(2)).thenReturn(Optional.of(order));
+        when(orderRepository.findByPayosOrderCode(3)).thenReturn(Optional.of(order));
+
+        PayOSClientConfig config = new PayOSClientConfig();
+        connectionProvider = config.payosConnectionProvider(4, 500, 10_000);
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        circuitBreaker = new PayOSCircuitBreaker(2, 60_000);
+        statusCache = new PaymentStatusCache(0, 0, 100); // TTL 0: every lookup goes to the stub
+        webClient = config.payosWebClient(connectionProvider, baseUrl, "client", "key", 1000, 3000);
+        payOSService = new PayOSService(webClient, circuitBreaker, statusCache, orderRepository,
+                new PayOSSigner("checksum-key"), 1000, QUERY_DEADLINE_MS);
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        connectionProvider.dispose();
+    }
+
+    @Test
+    void returnsPayOSDataWhenTheApiAnswers() {
+        Map<String, Object> result = payOSService.getPaymentInfo(1).block();
+
+        assertEquals(true, result.get("success"));
+        assertEquals("PAID", ((Map<?, ?>) result.get("data")).get("status"));
+    }
+
+    @Test
+    void slowApiHitsTheDeadlineAndFallsBackToTheDatabase() {
+        long start = System.currentTimeMillis();
+        Map<String, Object> result = payOSService.getPaymentInfo(2).block();
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(true, result.get("fallback"));
+        assertEquals("PAID", ((Map<?, ?>) result.get("data")).get("status"));
+        assertTrue(elapsed < 5000, "call took " + elapsed + " ms");
+    }
+
+    @Test
+    void openCircuitSkipsPayOSAndUsesTheDatabase() {
+        payOSService.getPaymentInfo(3).block();
+        payOSService.getPaymentInfo(3).block();
+        assertEquals(PayOSCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        Map<String, Object> result = payOSService.getPaymentInfo(3).block();
+
+        assertEquals(2, failingCalls.get());
+        assertEquals(true, result.get("fallback"));
+        assertEquals(false, payOSService.cancelPayment(3, "test").block().get("success"));
+        assertEquals(2, failingCalls.get());
+    }
+
+    @Test
+    void databaseFallbackReportsThePaymentStatusImpliedByTheOrderStatus() {
+        Map<String, String> expected = Map.of(
+                "pending", "PENDING",
+                "paid", "PAID",
+                "confirmed", "PAID",
+                "preparing", "PAID",
+                "shipping", "PAID",
+                "delivered", "PAID",
+                "completed", "PAID",
+                "cancelled", "CANCELLED",
+                "expired", "CANCELLED");
+        expected.forEach((orderStatus, paymentStatus) -> {
+            Order order = new Order(1, 1, 1, new BigDecimal("50000"), orderStatus, "PayOS:3");
+            when(orderRepository.findByPayosOrderCode(3)).thenReturn(Optional.of(order));
+
+            Map<String, Object> result = payOSService.getPaymentInfo(3).block();
+
+            assertEquals(true, result.get("fallback"));
+            assertEquals(paymentStatus, ((Map<?, ?>) result.get("data")).get("status"), orderStatus);
+        });
+    }
+
+    @Test
+    void repeatedPollsAreServedFromTheCacheAndWebhooksOverwriteIt() {
+        PaymentStatusCache cache = new PaymentStatusCache(60_000, 60_000, 100);
+        PayOSService cachingService = new PayOSService(webClient, circuitBreaker, cache, orderRepository,
+                new PayOSSigner("checksum-key"), 1000, QUERY_DEADLINE_MS);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(true, cachingService.getPaymentInfo(1).block().get("success"));
+        }
+        assertEquals(1, paidCalls.get());
+        assertEquals(9L, cache.getMetrics().get("hits"));
+        assertEquals(1L, cache.getMetrics().get("misses"));
+
+        cache.putFromWebhook(1, "CANCELLED", 50000);
+        assertEquals("CANCELLED", ((Map<?, ?>) cachingService.getPaymentInfo(1).block().get("data")).get("status"));
+        assertEquals(1, paidCalls.get());
+
+        cache.invalidate(1);
+        cachingService.getPaymentInfo(1).block();
+        assertEquals(2, paidCalls.get());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        } catch (IOException ignored) {
+            // client gave up (deadline)
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
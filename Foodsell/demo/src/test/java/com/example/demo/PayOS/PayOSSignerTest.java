@@ -0,0 +1,72 @@
+package com.example.demo.PayOS;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PayOSSignerTest {
+
+    private static final String KEY = "be9f242f3911d017ba65995abca8d60f";
+
+    private final PayOSSigner signer = new PayOSSigner(KEY);
+
+    @Test
+    void paymentRequestSignatureMatchesPlainHmacOfTheFixedFields() throws Exception {
+        Map<String, Object> request = new HashMap<>();
+        request.put("orderCode", 123456);
+        request.put("amount", 65000);
+        request.put("description", "Thanh toán đơn hàng");
+        request.put("returnUrl", "http://localhost:3000/payment/success?orderCode=123456");
+        request.put("cancelUrl", "http://localhost:3000/payment/cancel?orderCode=123456");
+        request.put("items", "not signed");
+
+        String expected = hmacHex("amount=65000&cancelUrl=http://localhost:3000/payment/cancel?orderCode=123456" +
+                "&description=Thanh toán đơn hàng&orderCode=123456" +
+                "&returnUrl=http://localhost:3000/payment/success?orderCode=123456");
+
+        assertEquals(expected, signer.signPaymentRequest(request));
+    }
+
+    @Test
+    void verifiesWebhookDataWithSortedKeysAndEmptyNulls() throws Exception {
+        Map<String, Object> data = new HashMap<>();
+        data.put("orderCode", 123456);
+        data.put("status", "PAID");
+        data.put("amount", 65000);
+        data.put("transactionId", "FT2301");
+        data.put("counterAccountName", null);
+        String signature = hmacHex("amount=65000&counterAccountName=&orderCode=123456&status=PAID&transactionId=FT2301");
+
+        assertTrue(signer.verify(data, signature));
+        assertTrue(signer.verify(data, signature.toUpperCase()));
+
+        data.put("amount", 1000);
+        assertFalse(signer.verify(data, signature));
+    }
+
+    @Test
+    void rejectsMalformedSignatures() {
+        Map<String, Object> data = Map.of("orderCode", 1);
+        String valid = signer.sign(data);
+
+        assertTrue(signer.verify(data, valid));
+        assertFalse(signer.verify(data, null));
+        assertFalse(signer.verify(data, valid.substring(2)));
+        assertFalse(signer.verify(data, "zz" + valid.substring(2)));
+    }
+
+    private static String hmacHex(String text) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(text.getBytes(StandardCharsets.UTF_8)));
+    }
+}
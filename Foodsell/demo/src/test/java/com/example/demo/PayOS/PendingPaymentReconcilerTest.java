@@ -0,0 +1,187 @@
+package com.example.demo.PayOS;
+
+import com.example.demo.Orders.Order;
+import com.example.demo.Orders.OrderRepository;
+import com.example.demo.Orders.OrderService;
+import com.example.testslice.H2JpaTest;
+import com.example.testslice.H2Slice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@H2JpaTest(H2Slice.Orders.class)
+class PendingPaymentReconcilerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @MockBean
+    private PayOSService payOSService;
+
+    private PendingPaymentReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        reconciler = new PendingPaymentReconciler(orderRepository, orderService, payOSService,
+                new PayOSCircuitBreaker(5, 30000), true, 15, 60, 2, 200, 0);
+    }
+
+    @Test
+    void appliesStatusReportedByPayOS() throws Exception {
+        Integer paidId = pendingOrder(1001, NOW.minusMinutes(20));
+        Integer cancelledId = pendingOrder(1002, NOW.minusMinutes(30));
+        Integer freshId = pendingOrder(1003, NOW.minusMinutes(5));
+        when(payOSService.getPaymentInfo(1001)).thenReturn(Mono.just(payOSStatus(1001, "PAID")));
+        when(payOSService.getPaymentInfo(1002)).thenReturn(Mono.just(payOSStatus(1002, "CANCELLED")));
+
+        assertEquals(2, reconciler.reconcileOnce(NOW));
+
+        assertEquals("paid", status(paidId));
+        assertEquals("cancelled", status(cancelledId));
+        assertEquals("pending", status(freshId));
+        verify(payOSService, never()).getPaymentInfo(1003);
+    }
+
+    @Test
+    void expiresAbandonedOrderOnlyAfterCancellingItsLink() throws Exception {
+        Integer abandonedId = pendingOrder(2001, NOW.minusMinutes(90));
+        Integer stillOpenId = pendingOrder(2002, NOW.minusMinutes(20));
+        Integer unknownId = pendingOrder(2003, NOW.minusMinutes(90));
+        when(payOSService.getPaymentInfo(2001)).thenReturn(Mono.just(payOSStatus(2001, "PENDING")));
+        when(payOSService.getPaymentInfo(2002)).thenReturn(Mono.just(payOSStatus(2002, "PENDING")));
+        Map<String, Object> fallback = payOSStatus(2003, "PENDING");
+        fallback.put("fallback", true);
+        when(payOSService.getPaymentInfo(2003)).thenReturn(Mono.just(fallback));
+        Map<String, Object> cancelled = new HashMap<>();
+        cancelled.put("success", true);
+        when(payOSService.cancelPayment(eq(2001), anyString())).thenReturn(Mono.just(cancelled));
+
+        assertEquals(3, reconciler.reconcileOnce(NOW));
+
+        assertEquals("expired", status(abandonedId));
+        assertEquals("pending", status(stillOpenId));
+        // PayOS unreachable (database fallback): never expired blindly
+        assertEquals("pending", status(unknownId));
+        verify(payOSService, never()).cancelPayment(eq(2002), anyString());
+        verify(payOSService, never()).cancelPayment(eq(2003), anyString());
+    }
+
+    @Test
+    void expiresPastDeadlineOrderWhosePaymentLinkPayOSDoesNotKnow() throws Exception {
+        Integer missingId = pendingOrder(2101, NOW.minusMinutes(90));
+        Integer recentId = pendingOrder(2102, NOW.minusMinutes(20));
+        Map<String, Object> notFound = new HashMap<>();
+        notFound.put("success", false);
+        notFound.put("code", PendingPaymentReconciler.PAYMENT_NOT_FOUND);
+        notFound.put("message", "Mã thanh toán không tồn tại");
+        when(payOSService.getPaymentInfo(2101)).thenReturn(Mono.just(notFound));
+        when(payOSService.getPaymentInfo(2102)).thenReturn(Mono.just(notFound));
+
+        assertEquals(2, reconciler.reconcileOnce(NOW));
+
+        assertEquals("expired", status(missingId));
+        assertEquals("pending", status(recentId));
+        verify(payOSService, never()).cancelPayment(anyInt(), anyString());
+    }
+
+    @Test
+    void otherPayOSErrorsAreRetriedInsteadOfExpiring() throws Exception {
+        Integer throttledId = pendingOrder(2201, NOW.minusMinutes(90));
+        Map<String, Object> throttled = new HashMap<>();
+        throttled.put("success", false);
+        throttled.put("code", "429");
+        throttled.put("message", "Too many requests");
+        when(payOSService.getPaymentInfo(2201)).thenReturn(Mono.just(throttled));
+
+        assertEquals(1, reconciler.reconcileOnce(NOW));
+
+        assertEquals("pending", status(throttledId));
+        assertEquals(1L, reconciler.getMetrics().get("skipped"));
+        verify(payOSService, never()).cancelPayment(anyInt(), anyString());
+    }
+
+    @Test
+    void findsOrdersStoredAsPendingPayment() throws Exception {
+        Order order = new Order(1, 7, 1, new BigDecimal("100000"), "pending_payment", "PayOS:2301");
+        order.setPayosOrderCode(2301);
+        order.setCreatedAt(NOW.minusMinutes(20));
+        Integer orderId = orderRepository.saveAndFlush(order).getId();
+        when(payOSService.getPaymentInfo(2301)).thenReturn(Mono.just(payOSStatus(2301, "PAID")));
+
+        assertEquals(1L, reconciler.getMetrics().get("pendingOrders"));
+        assertEquals(1, reconciler.reconcileOnce(NOW));
+
+        assertEquals("paid", status(orderId));
+        assertEquals(0L, reconciler.getMetrics().get("pendingOrders"));
+    }
+
+    @Test
+    void unresolvableOrdersDoNotStarveNewerOnes() throws Exception {
+        // batches of 2, at most 3 orders per run
+        reconciler = new PendingPaymentReconciler(orderRepository, orderService, payOSService,
+                new PayOSCircuitBreaker(5, 30000), true, 15, 60, 2, 3, 0);
+        Map<String, Object> fallback = payOSStatus(0, "PENDING");
+        fallback.put("fallback", true);
+        for (int orderCode = 3001; orderCode <= 3004; orderCode++) {
+            pendingOrder(orderCode, NOW.minusMinutes(30));
+            when(payOSService.getPaymentInfo(orderCode)).thenReturn(Mono.just(fallback));
+        }
+        Integer newestId = pendingOrder(3005, NOW.minusMinutes(20));
+        when(payOSService.getPaymentInfo(3005)).thenReturn(Mono.just(payOSStatus(3005, "PAID")));
+
+        assertEquals(3, reconciler.reconcileOnce(NOW));
+        assertEquals("pending", status(newestId));
+
+        // Continues after the third order instead of checking the same three again
+        assertEquals(2, reconciler.reconcileOnce(NOW));
+        assertEquals("paid", status(newestId));
+
+        // End of the list reached: the next run wraps around to the oldest order
+        assertEquals(3, reconciler.reconcileOnce(NOW));
+        verify(payOSService, times(2)).getPaymentInfo(3001);
+        verify(payOSService, times(1)).getPaymentInfo(3005);
+    }
+
+    private Integer pendingOrder(int orderCode, LocalDateTime createdAt) {
+        Order order = new Order(1, 7, 1, new BigDecimal("100000"), "pending", "PayOS:" + orderCode);
+        order.setPayosOrderCode(orderCode);
+        order.setCreatedAt(createdAt);
+        return orderRepository.saveAndFlush(order).getId();
+    }
+
+    private String status(Integer orderId) {
+        return orderRepository.findStatusById(orderId).orElse(null);
+    }
+
+    private static Map<String, Object> payOSStatus(int orderCode, String status) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("orderCode", orderCode);
+        data.put("status", status);
+        data.put("amount", 100000);
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("data", data);
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demo;
+
+import com.example.demo.Orders.OrderService;
+import com.example.demo.Users.User;
+import com.example.demo.config.RoleChecker;
+import com.example.demo.shops.Shop;
+import com.example.demo.shops.ShopService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class SellerControllerTest {
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final RoleChecker roleChecker = mock(RoleChecker.class);
+    private final ShopService shopService = mock(ShopService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        Shop shop = new Shop();
+        shop.setId(3);
+        shop.setSellerId(7);
+        when(shopService.getShopById(3)).thenReturn(Optional.of(shop));
+        when(orderService.getShopIdOfOrder(10)).thenReturn(Optional.of(3));
+        when(orderService.updateOrderStatus(10, "cancelled")).thenReturn(Map.of("success", true, "status", "cancelled"));
+        mockMvc = MockMvcBuilders.standaloneSetup(new SellerController(orderService, roleChecker, shopService)).build();
+    }
+
+    @Test
+    void sellerCannotUpdateAnotherShopsOrder() throws Exception {
+        when(roleChecker.getCurrentUser()).thenReturn(user(8));
+
+        cancel(10).andExpect(status().isForbidden());
+        verify(orderService, never()).updateOrderStatus(anyInt(), anyString());
+    }
+
+    @Test
+    void owningSellerAndAdminsCanUpdateIt() throws Exception {
+        when(roleChecker.getCurrentUser()).thenReturn(user(7));
+        cancel(10).andExpect(status().isOk());
+
+        when(roleChecker.isAdmin()).thenReturn(true);
+        when(roleChecker.getCurrentUser()).thenReturn(user(1));
+        cancel(10).andExpect(status().isOk());
+    }
+
+    @Test
+    void unknownOrderIsNotFound() throws Exception {
+        when(roleChecker.getCurrentUser()).thenReturn(user(7));
+        when(orderService.getShopIdOfOrder(11)).thenReturn(Optional.empty());
+
+        cancel(11).andExpect(status().isNotFound());
+    }
+
+    private ResultActions cancel(int orderId) throws Exception {
+        return mockMvc.perform(post("/api/seller/orders/" + orderId + "/status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"cancelled\"}"));
+    }
+
+    private static User user(int id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
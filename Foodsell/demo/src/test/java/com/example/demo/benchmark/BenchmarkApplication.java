@@ -0,0 +1,24 @@
+package com.example.demo.benchmark;
+
+import com.example.testslice.H2Slice;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// Minimal Spring context for JMH benchmarks: order module (plus products it reads), on the embedded H2 "h2" profile
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(H2Slice.OrdersApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("h2")
+                .properties("logging.level.root=WARN",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "payos.order-code-backfill.enabled=false")
+                .logStartupInfo(false)
+                .run();
+    }
+}
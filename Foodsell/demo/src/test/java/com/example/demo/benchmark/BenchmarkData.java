@@ -0,0 +1,109 @@
+package com.example.demo.benchmark;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+// Bulk seeding for benchmarks: plain JDBC batches straight into the H2 tables created by Hibernate,
+// so 1M orders load in seconds instead of going through the entity layer
+public final class BenchmarkData {
+    public static final int ITEMS_PER_ORDER = 2;
+    public static final int ORDERS_PER_BUYER = 20;
+    public static final int PRODUCT_COUNT = 100;
+    public static final int FIRST_PAYOS_ORDER_CODE = 10_000_000;
+
+    private static final int BATCH_SIZE = 5_000;
+    private static final BigDecimal UNIT_PRICE = new BigDecimal("25000.00");
+
+    private BenchmarkData() {
+    }
+
+    // Buyer ids run from 1 to orders / ORDERS_PER_BUYER, so every buyer has the same history length
+    public static int buyerCount(int orders) {
+        return Math.max(1, orders / ORDERS_PER_BUYER);
+    }
+
+    // Seeds products 1..PRODUCT_COUNT, then orders 1..orders (each with ITEMS_PER_ORDER items and a summary row).
+    // Expects empty tables: ids are assigned by IDENTITY in insert order.
+    public static void seed(JdbcTemplate jdbc, int orders) {
+        seedProducts(jdbc);
+        int buyers = buyerCount(orders);
+        LocalDateTime start = LocalDateTime.now().minusDays(365);
+        for (int from = 0; from < orders; from += BATCH_SIZE) {
+            int offset = from;
+            int count = Math.min(BATCH_SIZE, orders - from);
+            jdbc.batchUpdate("INSERT INTO orders (buyer_id, shop_id, delivery_address_id, total_amount, status, notes, " +
+                    "payos_order_code, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    int n = offset + i;
+                    ps.setInt(1, n % buyers + 1);
+                    ps.setInt(2, n % 50 + 1);
+                    ps.setInt(3, 1);
+                    ps.setBigDecimal(4, orderTotal());
+                    ps.setString(5, "pending");
+                    ps.setString(6, "PayOS:" + (FIRST_PAYOS_ORDER_CODE + n));
+                    ps.setInt(7, FIRST_PAYOS_ORDER_CODE + n);
+                    ps.setTimestamp(8, Timestamp.valueOf(start.plusSeconds(n * 30L)));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return count;
+                }
+            });
+            jdbc.batchUpdate("INSERT INTO order_items (order_id, product_id, quantity, unit_price, line_total) " +
+                    "VALUES (?, ?, ?, ?, ?)", new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    int orderId = offset + i / ITEMS_PER_ORDER + 1;
+                    ps.setInt(1, orderId);
+                    ps.setInt(2, (orderId + i % ITEMS_PER_ORDER) % PRODUCT_COUNT + 1);
+                    ps.setInt(3, 1);
+                    ps.setBigDecimal(4, UNIT_PRICE);
+                    ps.setBigDecimal(5, UNIT_PRICE);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return count * ITEMS_PER_ORDER;
+                }
+            });
+        }
+        jdbc.update("INSERT INTO order_summaries (order_id, buyer_id, shop_id, status, total_amount, item_count, " +
+                "created_at, updated_at) SELECT id, buyer_id, shop_id, status, total_amount, ?, created_at, created_at " +
+                "FROM orders", ITEMS_PER_ORDER);
+    }
+
+    private static void seedProducts(JdbcTemplate jdbc) {
+        jdbc.batchUpdate("INSERT INTO products (shop_id, category_id, name, description, price, is_available, " +
+                "image_url, status, approval_status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, i % 50 + 1);
+                ps.setInt(2, i % 10 + 1);
+                ps.setString(3, "Product " + i);
+                ps.setString(4, "");
+                ps.setDouble(5, UNIT_PRICE.doubleValue());
+                ps.setBoolean(6, true);
+                ps.setString(7, "/uploads/product-" + i + ".jpg");
+                ps.setString(8, "active");
+                ps.setString(9, "approved");
+            }
+
+            @Override
+            public int getBatchSize() {
+                return PRODUCT_COUNT;
+            }
+        });
+    }
+
+    private static BigDecimal orderTotal() {
+        return UNIT_PRICE.multiply(BigDecimal.valueOf(ITEMS_PER_ORDER));
+    }
+}
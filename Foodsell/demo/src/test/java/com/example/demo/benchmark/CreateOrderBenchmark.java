@@ -0,0 +1,89 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.Orders.Order;
+import com.example.demo.Orders.OrderItem;
+import com.example.demo.Orders.OrderItemRepository;
+import com.example.demo.Orders.OrderRepository;
+import com.example.demo.Orders.OrderService;
+import com.example.demo.products.Product;
+import com.example.demo.products.ProductRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Order creation cost by cart size: JDBC-batched item inserts (OrderService.createOrder)
+// versus the previous one-save-per-item loop
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreateOrderBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int cartSize;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private OrderRepository orderRepository;
+    private OrderItemRepository orderItemRepository;
+    private TransactionTemplate transactionTemplate;
+    private List<Map<String, Object>> cartItems;
+    private final AtomicInteger orderCode = new AtomicInteger(1_000_000);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        orderService = context.getBean(OrderService.class);
+        orderRepository = context.getBean(OrderRepository.class);
+        orderItemRepository = context.getBean(OrderItemRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        // createOrder prices the cart from the products table, so the products must exist
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        cartItems = new ArrayList<>(cartSize);
+        for (int i = 0; i < cartSize; i++) {
+            Product product = productRepository.save(
+                    new Product(1, 1, "Product " + i, "", 25000, true, null, "active"));
+            Map<String, Object> item = new HashMap<>();
+            item.put("productId", product.getId());
+            item.put("quantity", 2);
+            item.put("price", 25000);
+            cartItems.add(item);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object createOrderBatched() {
+        return orderService.createOrder(null, null, cartItems, orderCode.incrementAndGet(),
+                cartSize * 50000 + 15000);
+    }
+
+    @Benchmark
+    public Object createOrderPerItemSave() {
+        return transactionTemplate.execute(status -> {
+            Order order = new Order(1, 1, 1, BigDecimal.valueOf(cartSize * 50000L), "pending",
+                    "PayOS:" + orderCode.incrementAndGet());
+            Order saved = orderRepository.save(order);
+            for (Map<String, Object> item : cartItems) {
+                orderItemRepository.save(new OrderItem(saved.getId(), (Integer) item.get("productId"),
+                        (Integer) item.get("quantity"), new BigDecimal((Integer) item.get("price"))));
+            }
+            return saved.getId();
+        });
+    }
+}
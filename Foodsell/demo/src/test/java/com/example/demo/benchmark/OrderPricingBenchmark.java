@@ -0,0 +1,94 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.Orders.OrderPricing;
+import com.example.demo.products.Product;
+import com.example.demo.products.ProductRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Cart pricing cost for large carts: server-side pricing (one IN query for all product prices, exact decimal
+// arithmetic) versus a per-line price lookup, plus the pure arithmetic against the old new BigDecimal(double) path
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderPricingBenchmark {
+
+    private static final BigDecimal SHIPPING_FEE = new BigDecimal("15000.00");
+
+    @Param({"10", "100", "1000"})
+    private int cartSize;
+
+    private ConfigurableApplicationContext context;
+    private OrderPricing orderPricing;
+    private ProductRepository productRepository;
+    private List<Map<String, Object>> cartItems;
+    private List<OrderPricing.CartLine> lines;
+    private Map<Integer, Product> products;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        orderPricing = context.getBean(OrderPricing.class);
+        productRepository = context.getBean(ProductRepository.class);
+
+        cartItems = new ArrayList<>(cartSize);
+        products = new HashMap<>();
+        for (int i = 0; i < cartSize; i++) {
+            Product product = productRepository.save(
+                    new Product(1, 1, "Product " + i, "", 19999.99 + i, true, null, "active"));
+            products.put(product.getId(), product);
+            Map<String, Object> item = new HashMap<>();
+            item.put("productId", product.getId());
+            item.put("quantity", 1 + i % 5);
+            item.put("price", product.getPrice());
+            cartItems.add(item);
+        }
+        lines = OrderPricing.parseCart(cartItems);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BigDecimal priceWithBatchedLookup() {
+        return orderPricing.price(OrderPricing.parseCart(cartItems)).getTotal();
+    }
+
+    @Benchmark
+    public BigDecimal priceWithPerLineLookup() {
+        BigDecimal total = SHIPPING_FEE;
+        for (OrderPricing.CartLine line : lines) {
+            Product product = productRepository.findById(line.getProductId()).orElseThrow();
+            total = total.add(BigDecimal.valueOf(product.getPrice()).multiply(BigDecimal.valueOf(line.getQuantity())));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal arithmeticExactDecimal() {
+        return OrderPricing.price(lines, products, SHIPPING_FEE).getTotal();
+    }
+
+    // Previous path: client price converted with new BigDecimal(double), line totals recomputed per item
+    @Benchmark
+    public BigDecimal arithmeticLegacyDoubleConversion() {
+        BigDecimal total = SHIPPING_FEE;
+        for (Map<String, Object> item : cartItems) {
+            BigDecimal unitPrice = new BigDecimal((Double) item.get("price"));
+            total = total.add(unitPrice.multiply(BigDecimal.valueOf((Integer) item.get("quantity"))));
+        }
+        return total;
+    }
+}
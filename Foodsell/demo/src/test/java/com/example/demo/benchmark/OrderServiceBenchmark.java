@@ -0,0 +1,90 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.Orders.Order;
+import com.example.demo.Orders.OrderItemRepository;
+import com.example.demo.Orders.OrderRepository;
+import com.example.demo.Orders.OrderService;
+import com.example.demo.dto.OrderDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Baseline for the order hot paths against seeded H2 (MSSQLServer mode) data sets of 1k / 100k / 1M orders.
+// Run one size with: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=OrderServiceBenchmark -Djmh.args="-p orders=1000"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx3g"})
+public class OrderServiceBenchmark {
+
+    private static final int CART_SIZE = 3;
+
+    @Param({"1000", "100000", "1000000"})
+    private int orders;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private Order sampleOrder;
+    private List<Map<String, Object>> cartItems;
+    private int buyers;
+    private final AtomicInteger nextOrderCode = new AtomicInteger();
+    private final AtomicInteger paymentCursor = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        orderService = context.getBean(OrderService.class);
+        BenchmarkData.seed(context.getBean(JdbcTemplate.class), orders);
+        buyers = BenchmarkData.buyerCount(orders);
+        nextOrderCode.set(BenchmarkData.FIRST_PAYOS_ORDER_CODE + orders);
+
+        sampleOrder = context.getBean(OrderRepository.class).findById(orders / 2).orElseThrow();
+        sampleOrder.setOrderItems(context.getBean(OrderItemRepository.class).findByOrderId(sampleOrder.getId()));
+
+        cartItems = new ArrayList<>(CART_SIZE);
+        for (int i = 0; i < CART_SIZE; i++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("productId", i + 1);
+            item.put("quantity", 1);
+            cartItems.add(item);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object createOrder() {
+        return orderService.createOrder(null, null, cartItems, nextOrderCode.incrementAndGet(),
+                CART_SIZE * 25000 + 15000);
+    }
+
+    @Benchmark
+    public List<OrderDTO> getOrdersByBuyerId() {
+        return orderService.getOrdersByBuyerId(ThreadLocalRandom.current().nextInt(buyers) + 1);
+    }
+
+    @Benchmark
+    public OrderDTO convertToOrderDTO() {
+        return orderService.convertToOrderDTO(sampleOrder);
+    }
+
+    // Walks the seeded orders: pending -> paid on the first pass, notes-only updates once every order is paid
+    @Benchmark
+    public boolean processPaymentResult() {
+        int code = BenchmarkData.FIRST_PAYOS_ORDER_CODE + Math.floorMod(paymentCursor.getAndIncrement(), orders);
+        return orderService.processPaymentResult(code, "PAID", 50000, "tx-" + code, "2024-01-01T00:00:00");
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.PayOS.PayOSSigner;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Per-webhook signature verification cost: the old path (new Mac + key spec, string concatenation, hex,
+// String.equals) against PayOSSigner (pre-keyed per-thread Mac, reused buffers, constant-time compare).
+// Run with: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=PayOSSignatureBenchmark -Djmh.args="-prof gc"
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayOSSignatureBenchmark {
+
+    private static final String KEY = "be9f242f3911d017ba65995abca8d60f";
+
+    private PayOSSigner signer;
+    private Map<String, Object> data;
+    private String signature;
+
+    @Setup
+    public void setUp() {
+        signer = new PayOSSigner(KEY);
+        // Typical PayOS webhook "data" object
+        data = new LinkedHashMap<>();
+        data.put("orderCode", 123456);
+        data.put("amount", 65000);
+        data.put("description", "Thanh toan don hang 123456");
+        data.put("accountNumber", "12345678");
+        data.put("reference", "TF230204212323");
+        data.put("transactionDateTime", "2024-01-01 10:00:00");
+        data.put("currency", "VND");
+        data.put("paymentLinkId", "124c33293c43417ab7879e14c8d9eb18");
+        data.put("code", "00");
+        data.put("desc", "Thành công");
+        data.put("counterAccountBankId", "");
+        data.put("counterAccountBankName", "");
+        data.put("counterAccountName", null);
+        data.put("counterAccountNumber", null);
+        data.put("virtualAccountName", null);
+        data.put("virtualAccountNumber", "");
+        signature = signer.sign(data);
+    }
+
+    @Benchmark
+    public boolean legacyVerify() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Object> entry : new TreeMap<>(data).entrySet()) {
+            if (text.length() > 0) {
+                text.append("&");
+            }
+            Object value = entry.getValue();
+            text.append(entry.getKey()).append("=").append(value == null ? "" : value.toString());
+        }
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] hash = mac.doFinal(text.toString().getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hash) {
+            String h = Integer.toHexString(0xff & b);
+            if (h.length() == 1) {
+                hex.append('0');
+            }
+            hex.append(h);
+        }
+        return hex.toString().equals(signature);
+    }
+
+    @Benchmark
+    public boolean signerVerify() {
+        return signer.verify(data, signature);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.ProductSummaryDTO;
+import com.example.demo.products.Product;
+import com.example.demo.products.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Customer product listing: full Product entities vs ProductSummaryDTO projections against seeded H2 data.
+// load*: query + hydration; json*: load + Jackson serialization. JSON sizes are printed at setup.
+// Run with: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=ProductProjectionBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx3g"})
+public class ProductProjectionBenchmark {
+
+    @Param({"5000"})
+    private int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository repository;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start();
+        repository = context.getBean(ProductRepository.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        seed(context.getBean(JdbcTemplate.class), products);
+
+        int entityBytes = objectMapper.writeValueAsBytes(repository.findAllApprovedProducts()).length;
+        int summaryBytes = objectMapper.writeValueAsBytes(repository.findAllApprovedSummaries()).length;
+        System.out.printf("%nJSON bytes for %d products: entities=%d, summaries=%d (%.0f%% smaller)%n",
+                products, entityBytes, summaryBytes, 100.0 * (entityBytes - summaryBytes) / entityBytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Product> loadEntities() {
+        return repository.findAllApprovedProducts();
+    }
+
+    @Benchmark
+    public List<ProductSummaryDTO> loadSummaries() {
+        return repository.findAllApprovedSummaries();
+    }
+
+    @Benchmark
+    public byte[] jsonEntities() throws Exception {
+        return objectMapper.writeValueAsBytes(repository.findAllApprovedProducts());
+    }
+
+    @Benchmark
+    public byte[] jsonSummaries() throws Exception {
+        return objectMapper.writeValueAsBytes(repository.findAllApprovedSummaries());
+    }
+
+    // Approved products that went through review, so the admin columns are filled as in production
+    private static void seed(JdbcTemplate jdbc, int count) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 12, 0));
+        jdbc.batchUpdate("INSERT INTO products (shop_id, category_id, name, description, price, is_available, image_url, " +
+                "status, approval_status, admin_note, reviewed_by, reviewed_at, rejection_reason, created_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, i % 50 + 1);
+                ps.setInt(2, i % 10 + 1);
+                ps.setString(3, "Phở bò tái nạm " + i);
+                ps.setString(4, "Nước dùng hầm xương bò 12 tiếng, bánh phở tươi, ăn kèm rau thơm và chanh ớt");
+                ps.setDouble(5, 45000);
+                ps.setBoolean(6, true);
+                ps.setString(7, "/uploads/product-" + i + ".jpg");
+                ps.setString(8, "active");
+                ps.setString(9, "approved");
+                ps.setString(10, "Đã kiểm tra hình ảnh và giá bán");
+                ps.setInt(11, 1);
+                ps.setTimestamp(12, now);
+                ps.setString(13, "Ảnh mờ, vui lòng chụp lại");
+                ps.setTimestamp(14, now);
+                ps.setTimestamp(15, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.products.Product;
+import com.example.demo.products.ProductRepository;
+import com.example.demo.products.ProductSearchIndex;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Latency of ProductSearchIndex.search over synthetic Vietnamese product names (no database involved).
+// Run with: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=ProductSearchBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx3g"})
+public class ProductSearchBenchmark {
+
+    private static final String[] DISHES = {"Phở", "Bún", "Cơm", "Bánh mì", "Hủ tiếu", "Mì Quảng", "Bánh xèo",
+            "Gỏi cuốn", "Chè", "Cà phê", "Trà sữa", "Xôi", "Cháo", "Lẩu", "Nem nướng", "Bánh canh"};
+    private static final String[] TOPPINGS = {"bò", "gà", "heo quay", "tôm", "cua", "chả", "sườn", "đặc biệt",
+            "thập cẩm", "hải sản", "chay", "trứng", "xá xíu", "nấm", "đậu hũ", "vịt"};
+    private static final String[] STYLES = {"Huế", "Hà Nội", "Sài Gòn", "Nam Vang", "nướng", "kho", "chiên",
+            "hấp", "sốt me", "cay", "truyền thống", "nhà làm"};
+
+    @Param({"1000000"})
+    private int products;
+
+    private ProductSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new ProductSearchIndex(Mockito.mock(ProductRepository.class));
+        Random random = new Random(42);
+        for (int id = 1; id <= products; id++) {
+            String name = DISHES[random.nextInt(DISHES.length)] + " " + TOPPINGS[random.nextInt(TOPPINGS.length)]
+                    + " " + STYLES[random.nextInt(STYLES.length)] + " " + id;
+            String description = "Món " + TOPPINGS[random.nextInt(TOPPINGS.length)] + " "
+                    + STYLES[random.nextInt(STYLES.length)] + ", giao nhanh";
+            Product product = new Product(id % 5000 + 1, random.nextInt(10) + 1, name, description, 30000, true, null, "active");
+            product.setId(id);
+            product.setApprovalStatus("approved");
+            index.update(product);
+        }
+    }
+
+    // Three-word query, last word as prefix (typical search box input)
+    @Benchmark
+    public List<Integer> selectiveQuery() {
+        return index.search("pho bo ha n", 50);
+    }
+
+    // Two common words: large candidate sets intersected and ranked
+    @Benchmark
+    public List<Integer> broadQuery() {
+        return index.search("bun bo", 50);
+    }
+
+    // Short prefix expanding to many dictionary terms
+    @Benchmark
+    public List<Integer> prefixQuery() {
+        return index.search("ch", 50);
+    }
+}
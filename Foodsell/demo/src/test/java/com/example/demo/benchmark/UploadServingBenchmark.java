@@ -0,0 +1,152 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.ImageVariantResolver;
+import com.example.demo.config.ImageVariantService;
+import com.example.demo.config.UploadResourceHandler;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Requests per second for /uploads on embedded Tomcat: the previous registry handler (no ETag, no Cache-Control,
+// body copied through the heap) against UploadResourceHandler (strong ETag, sendfile) serving the same file.
+// get*: full download of a product photo; revalidate*: conditional GET answered with 304.
+// Run with: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=UploadServingBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class UploadServingBenchmark {
+    private static final String BLOB = "58100dc8fc06562ce3e578231dc948e083520ee49c4b4ee5a5a28bb4b4003feb";
+
+    // Typical seller photo after upload (JPEG, so no compression on the wire either way)
+    @Param({"262144"})
+    private int bytes;
+
+    private static Path uploads;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest currentGet;
+    private HttpRequest tunedGet;
+    private HttpRequest currentRevalidate;
+    private HttpRequest tunedRevalidate;
+
+    // Not a @Configuration: DemoApplication's @ComponentScan would otherwise register these beans in the full
+    // application context too. SpringApplicationBuilder takes it as a plain source class.
+    @ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class})
+    static class UploadsApp implements WebMvcConfigurer {
+        private final ImageVariantService imageVariants = new ImageVariantService(1, 10, 0.8f);
+
+        // The handler StaticResourceConfig registered before UploadResourceHandler
+        @Override
+        public void addResourceHandlers(ResourceHandlerRegistry registry) {
+            registry.addResourceHandler("/current/**")
+                    .addResourceLocations(uploads.toUri().toString())
+                    .resourceChain(false)
+                    .addResolver(new ImageVariantResolver(imageVariants));
+        }
+
+        @Bean
+        UploadResourceHandler uploadResourceHandler() {
+            return new UploadResourceHandler(imageVariants, uploads.toUri().toString());
+        }
+
+        @Bean
+        SimpleUrlHandlerMapping uploadHandlerMapping(UploadResourceHandler handler) {
+            SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping(Map.of("/uploads/**", handler));
+            mapping.setOrder(Ordered.LOWEST_PRECEDENCE - 2);
+            return mapping;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        uploads = Files.createTempDirectory("uploads-bench");
+        byte[] photo = new byte[bytes];
+        new Random(7).nextBytes(photo);
+        Path file = uploads.resolve("blobs/58/" + BLOB + ".jpg");
+        Files.createDirectories(file.getParent());
+        Files.write(file, photo);
+
+        context = new SpringApplicationBuilder(UploadsApp.class)
+                .web(WebApplicationType.SERVLET)
+                .properties("server.port=0", "logging.level.root=WARN")
+                .logStartupInfo(false)
+                .run();
+        String base = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        String path = "/blobs/58/" + BLOB + ".jpg";
+        currentGet = HttpRequest.newBuilder(URI.create(base + "/current" + path)).build();
+        tunedGet = HttpRequest.newBuilder(URI.create(base + "/uploads" + path)).build();
+        String lastModified = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                ZonedDateTime.ofInstant(Files.getLastModifiedTime(file).toInstant(), ZoneOffset.UTC));
+        currentRevalidate = HttpRequest.newBuilder(URI.create(base + "/current" + path))
+                .header("If-Modified-Since", lastModified).build();
+        tunedRevalidate = HttpRequest.newBuilder(URI.create(base + "/uploads" + path))
+                .header("If-None-Match", "\"" + BLOB + ".jpg\"").build();
+
+        HttpResponse<Void> tuned = client.send(tunedRevalidate, HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> current = client.send(currentRevalidate, HttpResponse.BodyHandlers.discarding());
+        if (tuned.statusCode() != 304 || current.statusCode() != 304) {
+            throw new IllegalStateException("Revalidation not answered with 304: " + current.statusCode() + "/" + tuned.statusCode());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        try (Stream<Path> files = Files.walk(uploads)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int getCurrent() throws Exception {
+        return client.send(currentGet, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int getTuned() throws Exception {
+        return client.send(tunedGet, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int revalidateCurrent() throws Exception {
+        return client.send(currentRevalidate, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int revalidateTuned() throws Exception {
+        return client.send(tunedRevalidate, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.config;
+
+import com.example.testslice.H2JpaTest;
+import com.example.testslice.H2Slice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// BlobStore commits ref counts in transactions of its own, so the test does not hold one open around it
+@H2JpaTest(H2Slice.Uploads.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BlobStoreTest {
+
+    @Autowired
+    private UploadBlobRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path dir;
+
+    private BlobStore store;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        store = new BlobStore(repository, new ImageVariantService(1, 10, 0.8f), transactionManager,
+                dir.resolve("blobs").toString());
+    }
+
+    @Test
+    void identicalUploadsShareOneFileAndReleaseOnlyDropsReferences() throws Exception {
+        String first = store.store(file("menu.TXT", "same bytes"));
+        String second = store.store(file("copy.txt", "same bytes"));
+        String other = store.store(file("other.txt", "different bytes"));
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+        // sha256("same bytes"), sharded by its first two hex digits
+        assertTrue(first.endsWith("/blobs/58/58100dc8fc06562ce3e578231dc948e083520ee49c4b4ee5a5a28bb4b4003feb.txt"), first);
+        assertEquals(2, refCount(first));
+
+        assertTrue(store.release("http://localhost:8080/" + first));
+        assertTrue(store.release(first));
+        assertTrue(store.release(first));
+        // Order history may still show it: the file is left to UploadGarbageCollector
+        assertTrue(Files.exists(Paths.get(first)));
+        assertEquals(0, refCount(first));
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    void referencesTakenInsideARolledBackTransactionAreGivenBack() throws Exception {
+        String first = store.store(file("menu.txt", "same bytes"));
+        TransactionTemplate outer = new TransactionTemplate(transactionManager);
+
+        assertThrows(IllegalStateException.class, () -> outer.executeWithoutResult(status -> {
+            storeUnchecked(file("copy.txt", "same bytes"));
+            throw new IllegalStateException("caller fails after the upload");
+        }));
+        // The reference was committed with the lock held, then given back when the caller rolled back
+        assertEquals(1, refCount(first));
+        outer.executeWithoutResult(status -> storeUnchecked(file("again.txt", "same bytes")));
+        assertEquals(2, refCount(first));
+    }
+
+    @Test
+    void olderUuidUploadsAreNotBlobs() {
+        assertFalse(store.release("uploads/product-images/0f8fad5b-d9cb-469f-a165-70867728950e.png"));
+        assertFalse(BlobStore.isBlobPath("http://localhost:8080/uploads/profile-images/avatar.jpg"));
+    }
+
+    @Test
+    void bodyOverTheLimitIsRejectedWhileStreaming() throws Exception {
+        ByteBuffer head = ByteBuffer.wrap(new byte[8]);
+        ReadableByteChannel rest = Channels.newChannel(new ByteArrayInputStream(new byte[100]));
+
+        UploadRejectedException tooLarge = assertThrows(UploadRejectedException.class, () -> store.store(head, rest, ".png", 64));
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, tooLarge.getStatus());
+        assertEquals(0, repository.count());
+        try (Stream<Path> temp = Files.list(dir.resolve("blobs/.tmp"))) {
+            assertEquals(0, temp.count());
+        }
+    }
+
+    private void storeUnchecked(MockMultipartFile file) {
+        try {
+            store.store(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int refCount(String path) {
+        return repository.findAll().stream().filter(b -> b.getPath().equals(path)).findFirst().get().getRefCount();
+    }
+
+    private static MockMultipartFile file(String name, String content) {
+        return new MockMultipartFile("file", name, "text/plain", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class FileUploadServiceTest {
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 13};
+
+    private final BlobStore blobStore = mock(BlobStore.class);
+    private final FileUploadService service = new FileUploadService(blobStore, mock(ImageVariantService.class), 1);
+
+    @Test
+    void typeComesFromTheBytesNotTheClient() throws Exception {
+        when(blobStore.store(any(), any(), eq(".png"), eq(10L * 1024 * 1024))).thenReturn("uploads/blobs/ab/ab.png");
+
+        assertEquals("uploads/blobs/ab/ab.png", service.uploadProductImageStream(1, new ByteArrayInputStream(PNG), PNG.length));
+
+        UploadRejectedException notImage = assertThrows(UploadRejectedException.class, () ->
+                service.uploadProductImageStream(1, new ByteArrayInputStream("<?php echo 1;".getBytes()), 13));
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, notImage.getStatus());
+    }
+
+    @Test
+    void declaredOversizeBodyIsRejectedWithoutReadingIt() {
+        InputStream unread = new InputStream() {
+            @Override
+            public int read() {
+                throw new AssertionError("body must not be read");
+            }
+        };
+        UploadRejectedException tooLarge = assertThrows(UploadRejectedException.class, () ->
+                service.uploadProfileImageStream(1, unread, 6L * 1024 * 1024));
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, tooLarge.getStatus());
+        verifyNoInteractions(blobStore);
+    }
+
+    @Test
+    void limitsConcurrentUploadsPerUser() throws Exception {
+        CountDownLatch storing = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        when(blobStore.store(any(ByteBuffer.class), any(ReadableByteChannel.class), any(), eq(10L * 1024 * 1024)))
+                .thenAnswer(invocation -> {
+                    storing.countDown();
+                    finish.await(5, TimeUnit.SECONDS);
+                    return "uploads/blobs/ab/ab.png";
+                });
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.uploadProductImageStream(7, new ByteArrayInputStream(PNG), PNG.length);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        storing.await(5, TimeUnit.SECONDS);
+
+        UploadRejectedException busy = assertThrows(UploadRejectedException.class, () ->
+                service.uploadProductImageStream(7, new ByteArrayInputStream(PNG), PNG.length));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, busy.getStatus());
+
+        finish.countDown();
+        assertEquals("uploads/blobs/ab/ab.png", first.get(5, TimeUnit.SECONDS));
+        // Slot released: the same user can upload again
+        assertEquals("uploads/blobs/ab/ab.png", service.uploadProductImageStream(7, new ByteArrayInputStream(PNG), PNG.length));
+        verify(blobStore, times(2)).store(any(), any(), eq(".png"), eq(10L * 1024 * 1024));
+    }
+}
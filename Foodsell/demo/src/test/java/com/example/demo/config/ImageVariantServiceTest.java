@@ -0,0 +1,56 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageVariantServiceTest {
+
+    private final ImageVariantService service = new ImageVariantService(1, 10, 0.8f);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesDownscaledJpegVariantsNextToTheOriginal() throws Exception {
+        Path original = dir.resolve("dish.png");
+        ImageIO.write(new BufferedImage(2400, 1600, BufferedImage.TYPE_INT_ARGB), "png", original.toFile());
+
+        service.generate(original);
+
+        assertSize(dir.resolve("dish@thumb.jpg"), 160, 107);
+        assertSize(dir.resolve("dish@small.jpg"), 320, 213);
+        assertSize(dir.resolve("dish@medium.jpg"), 640, 427);
+
+        service.deleteVariants(original);
+        assertFalse(Files.exists(dir.resolve("dish@thumb.jpg")));
+        assertTrue(Files.exists(original));
+    }
+
+    @Test
+    void neverUpscalesSmallImages() throws Exception {
+        Path original = dir.resolve("icon.jpg");
+        ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "jpg", original.toFile());
+
+        service.generate(original);
+
+        assertSize(dir.resolve("icon@thumb.jpg"), 160, 80);
+        assertSize(dir.resolve("icon@medium.jpg"), 200, 100);
+        assertTrue(ImageVariantService.isOriginalImage("uploads/product-images/icon.JPG"));
+        assertFalse(ImageVariantService.isOriginalImage("uploads/product-images/icon@thumb.jpg"));
+    }
+
+    private static void assertSize(Path image, int width, int height) throws Exception {
+        BufferedImage read = ImageIO.read(image.toFile());
+        assertEquals(width, read.getWidth());
+        assertEquals(height, read.getHeight());
+    }
+}
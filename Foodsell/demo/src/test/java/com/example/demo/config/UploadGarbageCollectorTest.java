@@ -0,0 +1,184 @@
+package com.example.demo.config;
+
+import com.example.testslice.H2JpaTest;
+import com.example.testslice.H2Slice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Not transactional: BlobStore commits ref counts in transactions of its own
+@H2JpaTest(H2Slice.Uploads.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UploadGarbageCollectorTest {
+
+    @Autowired
+    private UploadBlobRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path dir;
+
+    private final Instant now = Instant.now();
+
+    @BeforeEach
+    void setUp() {
+        jdbc.execute("CREATE TABLE IF NOT EXISTS products (image_url VARCHAR(500))");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS users (profile_image VARCHAR(500))");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS complaint_images (image_url VARCHAR(500))");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS order_summaries (thumbnail_url VARCHAR(500))");
+        for (String table : new String[]{"products", "users", "complaint_images", "order_summaries"}) {
+            jdbc.update("DELETE FROM " + table);
+        }
+        repository.deleteAll();
+    }
+
+    @Test
+    void sweepsTheTreeInCheckpointedBatchesAndQuarantinesOnlyOldUnreferencedFiles() throws Exception {
+        Path uploads = dir.resolve("uploads");
+        Path kept1 = oldFile(uploads.resolve("product-images/a.png"));
+        Path kept2 = oldFile(uploads.resolve("profile-images/b.png"));
+        Path kept3 = oldFile(uploads.resolve("complaint-images/c.png"));
+        Path orphan = oldFile(uploads.resolve("product-images/d.png"));
+        Path orphanVariant = oldFile(uploads.resolve("product-images/d@thumb.jpg"));
+        Path keptVariant = oldFile(uploads.resolve("product-images/a@thumb.jpg"));
+        Path young = Files.writeString(createParent(uploads.resolve("product-images/e.png")), "new");
+        Path handPlaced = oldFile(uploads.resolve("static/logo.png"));
+        jdbc.update("INSERT INTO products (image_url) VALUES ('http://localhost:8080/uploads/product-images/a.png')");
+        jdbc.update("INSERT INTO users (profile_image) VALUES ('uploads/profile-images/b.png')");
+        jdbc.update("INSERT INTO complaint_images (image_url) VALUES ('/uploads/complaint-images/c.png')");
+
+        UploadGarbageCollector collector = collector(uploads, "quarantine", 2);
+        int removed = 0;
+        // 7 managed files, 2 per run: the pass ends on the 4th run
+        for (int run = 1; run <= 4; run++) {
+            removed += collector.sweepOnce(now);
+            assertEquals(run < 4 ? 0L : 1L, collector.getMetrics().get("passes"), "run " + run);
+        }
+        assertEquals(7L, collector.getMetrics().get("scanned"));
+        assertEquals(2, removed);
+
+        assertTrue(Files.exists(kept1) && Files.exists(kept2) && Files.exists(kept3) && Files.exists(keptVariant));
+        assertTrue(Files.exists(young) && Files.exists(handPlaced));
+        assertFalse(Files.exists(orphan) || Files.exists(orphanVariant));
+        Path day = dir.resolve("quarantine").resolve(LocalDate.ofInstant(now, ZoneId.systemDefault()).toString());
+        assertTrue(Files.exists(day.resolve("product-images/d.png")));
+        assertTrue(Files.exists(day.resolve("product-images/d@thumb.jpg")));
+    }
+
+    @Test
+    void deletesUnreferencedBlobsUnlessStoredAgainSinceTheCutoff() throws Exception {
+        Path uploads = dir.resolve("uploads");
+        BlobStore blobStore = blobStore(uploads);
+        Path orphan = Path.of(blobStore.store(new MockMultipartFile("file", "a.txt", "text/plain", bytes("orphan"))));
+        Path reused = Path.of(blobStore.store(new MockMultipartFile("file", "b.txt", "text/plain", bytes("reused"))));
+        Path held = Path.of(blobStore.store(new MockMultipartFile("file", "d.txt", "text/plain", bytes("held"))));
+        blobStore.release(orphan.toString());
+        blobStore.release(reused.toString());
+        age(orphan);
+        age(reused);
+        age(held); // never released: still counted, even without a stored URL
+        blobStore.store(new MockMultipartFile("file", "c.txt", "text/plain", bytes("reused"))); // touches it
+
+        UploadGarbageCollector collector = new UploadGarbageCollector(jdbc, blobStore, uploads.toString(),
+                dir.resolve("quarantine").toString(), true, "delete", 100, 24, 10, 0, 7);
+        assertEquals(1, collector.sweepOnce(now));
+
+        assertFalse(Files.exists(orphan));
+        assertEquals(2, repository.count());
+        assertTrue(Files.exists(reused) && Files.exists(held));
+        assertEquals(1L, collector.getMetrics().get("deleted"));
+    }
+
+    @Test
+    void releasedProductImageIsKeptWhileOrderHistoryShowsIt() throws Exception {
+        Path uploads = dir.resolve("uploads");
+        BlobStore blobStore = blobStore(uploads);
+        String image = blobStore.store(new MockMultipartFile("file", "pho.png", "image/png", bytes("pho")));
+        String url = "http://localhost:8080/uploads/" + uploads.relativize(Path.of(image)).toString().replace('\\', '/');
+        jdbc.update("INSERT INTO order_summaries (thumbnail_url) VALUES (?)", url);
+        // The product is deleted; its order summaries keep the URL without holding a reference
+        assertTrue(blobStore.release(image));
+        age(Path.of(image));
+
+        UploadGarbageCollector collector = new UploadGarbageCollector(jdbc, blobStore, uploads.toString(),
+                dir.resolve("quarantine").toString(), true, "delete", 100, 24, 10, 0, 7);
+        assertEquals(0, collector.sweepOnce(now));
+        assertTrue(Files.exists(Path.of(image)));
+
+        jdbc.update("DELETE FROM order_summaries");
+        assertEquals(1, collector.sweepOnce(now));
+        assertFalse(Files.exists(Path.of(image)));
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    void removalsPerRunAreCappedAndTheRestIsResumedFromTheCheckpoint() throws Exception {
+        Path uploads = dir.resolve("uploads");
+        for (int i = 0; i < 5; i++) {
+            oldFile(uploads.resolve("product-images/" + i + ".png"));
+        }
+        UploadGarbageCollector collector = new UploadGarbageCollector(jdbc, null, uploads.toString(),
+                dir.resolve("quarantine").toString(), true, "delete", 100, 24, 2, 0, 7);
+
+        assertEquals(2, collector.sweepOnce(now));
+        assertEquals("product-images/1.png", collector.getMetrics().get("checkpoint"));
+        assertEquals(2, collector.sweepOnce(now));
+        assertEquals(1, collector.sweepOnce(now));
+        assertEquals(1L, collector.getMetrics().get("passes"));
+        assertNull(collector.getMetrics().get("checkpoint"));
+    }
+
+    private BlobStore blobStore(Path uploads) {
+        return new BlobStore(repository, new ImageVariantService(1, 10, 0.8f), transactionManager,
+                uploads.resolve("blobs").toString());
+    }
+
+    private UploadGarbageCollector collector(Path uploads, String mode, int batchSize) {
+        return new UploadGarbageCollector(jdbc, null, uploads.toString(), dir.resolve("quarantine").toString(),
+                true, mode, batchSize, 24, 100, 0, 7);
+    }
+
+    private Path oldFile(Path file) throws Exception {
+        Files.writeString(createParent(file), file.getFileName().toString());
+        return age(file);
+    }
+
+    private Path age(Path file) throws Exception {
+        Files.setLastModifiedTime(file, FileTime.from(now.minus(Duration.ofDays(2))));
+        return file;
+    }
+
+    private static Path createParent(Path file) throws Exception {
+        Files.createDirectories(file.getParent());
+        return file;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the handler on embedded Tomcat: large bodies go through sendfile, which only a real connector does
+class UploadResourceHandlerTest {
+    private static final String BLOB = "58100dc8fc06562ce3e578231dc948e083520ee49c4b4ee5a5a28bb4b4003feb";
+
+    @TempDir
+    static Path uploads;
+
+    private static ConfigurableApplicationContext context;
+    private static String baseUrl;
+    private static byte[] photo;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    // Not a @Configuration: DemoApplication's @ComponentScan would otherwise register these beans in the full
+    // application context too. SpringApplicationBuilder takes it as a plain source class.
+    @ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class})
+    static class UploadsApp {
+        @Bean
+        UploadResourceHandler uploadResourceHandler() {
+            return new UploadResourceHandler(new ImageVariantService(1, 10, 0.8f), uploads.toUri().toString());
+        }
+
+        @Bean
+        SimpleUrlHandlerMapping uploadHandlerMapping(UploadResourceHandler handler) {
+            SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping(Map.of("/uploads/**", handler));
+            mapping.setOrder(Ordered.LOWEST_PRECEDENCE - 2);
+            return mapping;
+        }
+    }
+
+    @BeforeAll
+    static void start() throws Exception {
+        photo = new byte[200 * 1024];
+        new Random(7).nextBytes(photo);
+        Files.createDirectories(uploads.resolve("blobs/58"));
+        Files.write(uploads.resolve("blobs/58/" + BLOB + ".png"), photo);
+        Files.write(uploads.resolve("legacy.png"), photo);
+
+        byte[] text = "món ngon ".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        Files.write(uploads.resolve("blobs/58/" + BLOB + ".txt"), text);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream output = new GZIPOutputStream(gzip)) {
+            output.write(text);
+        }
+        Files.write(uploads.resolve("blobs/58/" + BLOB + ".txt.gz"), gzip.toByteArray());
+
+        context = new SpringApplicationBuilder(UploadsApp.class)
+                .web(WebApplicationType.SERVLET)
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run();
+        baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void blobsAreImmutableWithAStrongEtag() throws Exception {
+        HttpResponse<byte[]> response = get("/uploads/blobs/58/" + BLOB + ".png", Map.of());
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(photo, response.body());
+        assertEquals("max-age=31536000, public, immutable", response.headers().firstValue("Cache-Control").orElse(null));
+        assertEquals("\"" + BLOB + ".png\"", response.headers().firstValue("ETag").orElse(null));
+
+        HttpResponse<byte[]> revalidated = get("/uploads/blobs/58/" + BLOB + ".png",
+                Map.of("If-None-Match", "\"" + BLOB + ".png\""));
+        assertEquals(304, revalidated.statusCode());
+
+        HttpResponse<byte[]> legacy = get("/uploads/legacy.png", Map.of());
+        assertArrayEquals(photo, legacy.body());
+        assertEquals("max-age=86400, public", legacy.headers().firstValue("Cache-Control").orElse(null));
+    }
+
+    @Test
+    void servesByteRanges() throws Exception {
+        HttpResponse<byte[]> response = get("/uploads/blobs/58/" + BLOB + ".png", Map.of("Range", "bytes=1000-150999"));
+        assertEquals(206, response.statusCode());
+        assertEquals("bytes 1000-150999/" + photo.length, response.headers().firstValue("Content-Range").orElse(null));
+        assertArrayEquals(Arrays.copyOfRange(photo, 1000, 151000), response.body());
+
+        HttpResponse<byte[]> small = get("/uploads/blobs/58/" + BLOB + ".png", Map.of("Range", "bytes=-10"));
+        assertArrayEquals(Arrays.copyOfRange(photo, photo.length - 10, photo.length), small.body());
+    }
+
+    @Test
+    void servesPrecompressedGzipToClientsThatAcceptIt() throws Exception {
+        HttpResponse<byte[]> response = get("/uploads/blobs/58/" + BLOB + ".txt", Map.of("Accept-Encoding", "gzip"));
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals("\"" + BLOB + ".txt-gzip\"", response.headers().firstValue("ETag").orElse(null));
+        assertArrayEquals(Files.readAllBytes(uploads.resolve("blobs/58/" + BLOB + ".txt.gz")), response.body());
+
+        HttpResponse<byte[]> identity = get("/uploads/blobs/58/" + BLOB + ".txt", Map.of());
+        assertTrue(identity.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals(Files.size(uploads.resolve("blobs/58/" + BLOB + ".txt")), identity.body().length);
+    }
+
+    private HttpResponse<byte[]> get(String path, Map<String, String> headers) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path));
+        headers.forEach(request::header);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
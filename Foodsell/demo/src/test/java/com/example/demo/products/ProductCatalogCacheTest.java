@@ -0,0 +1,102 @@
+package com.example.demo.products;
+
+import com.example.demo.config.CollectionVersions;
+import com.example.demo.dto.ProductSummaryDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class ProductCatalogCacheTest {
+
+    private ProductCatalogCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductCatalogCache(mock(ProductRepository.class), new CollectionVersions(0), 60000, 2, 10);
+    }
+
+    @Test
+    void dropsOnlyTheListsAChangedProductTouches() {
+        Product pho = product(1, 10, 100, true);
+        Product bun = product(2, 20, 200, true);
+        shop(10, List.of(pho));
+        shop(20, List.of(bun));
+        category(100, List.of(pho));
+        category(200, List.of(bun));
+        assertEquals(4, loads.get());
+
+        // Product 1 moves from category 100 to 200
+        cache.productChanged(1, product(1, 10, 200, true));
+        shop(10, List.of(pho));
+        category(100, List.of());
+        category(200, List.of(bun, pho));
+        shop(20, List.of(bun));
+        assertEquals(7, loads.get()); // shop 10, category 100 and 200 reloaded; shop 20 still cached
+
+        assertEquals(1L, cache.getMetrics().get("hits"));
+        assertEquals(7L, cache.getMetrics().get("misses"));
+    }
+
+    @Test
+    void hiddenProductsOnlyInvalidateTheListsHoldingThem() {
+        cache.getAllApproved(() -> load(summaries(List.of(product(1, 10, 100, true)))));
+        category(200, List.of());
+
+        // A new pending product in category 200 is not visible to customers
+        cache.productChanged(2, product(2, 10, 200, false));
+        cache.getAllApproved(() -> load(List.of()));
+        category(200, List.of());
+        assertEquals(2, loads.get());
+
+        cache.productChanged(1, null);
+        cache.getAllApproved(() -> load(List.of()));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void evictsLeastRecentlyReadShops() {
+        shop(1, List.of());
+        shop(2, List.of());
+        shop(1, List.of());
+        shop(3, List.of()); // evicts shop 2
+        shop(1, List.of());
+        shop(2, List.of());
+
+        assertEquals(4, loads.get());
+        assertEquals(2L, cache.getMetrics().get("evictions"));
+    }
+
+    private void shop(int shopId, List<Product> products) {
+        cache.getByShop(shopId, () -> load(products));
+    }
+
+    private void category(int categoryId, List<Product> products) {
+        cache.getApprovedByCategory(categoryId, () -> load(summaries(products)));
+    }
+
+    private <T> List<T> load(List<T> products) {
+        loads.incrementAndGet();
+        return products;
+    }
+
+    private static List<ProductSummaryDTO> summaries(List<Product> products) {
+        return products.stream()
+                .map(p -> new ProductSummaryDTO(p.getId(), p.getShopId(), p.getCategoryId(), p.getName(), p.getDescription(),
+                        p.getPrice(), p.isAvailable(), p.getImageUrl(), p.getStatus(), p.getCreatedAt()))
+                .collect(Collectors.toList());
+    }
+
+    private static Product product(int id, int shopId, int categoryId, boolean approved) {
+        Product product = new Product(shopId, categoryId, "Món " + id, null, 30000, true, null, "active");
+        product.setId(id);
+        product.setApprovalStatus(approved ? "approved" : "pending");
+        return product;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.demo.products;
+
+import com.example.demo.dto.ProductPageDTO;
+import com.example.demo.dto.ProductSummaryDTO;
+import com.example.demo.shops.Shop;
+import com.example.testslice.H2JpaTest;
+import com.example.testslice.H2Slice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@H2JpaTest(H2Slice.Products.class)
+class ProductCatalogTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private int goodShop;
+    private int unratedShop;
+
+    @BeforeEach
+    void setUp() {
+        goodShop = shop(1, 4.8f);
+        unratedShop = shop(2, null);
+        product(goodShop, 1, "Phở bò", 45000, true, "approved");
+        product(goodShop, 1, "Phở gà", 40000, true, "approved");
+        product(unratedShop, 1, "Bún chả", 40000, true, "approved");
+        product(unratedShop, 2, "Trà đá", 5000, true, "approved");
+        product(unratedShop, 2, "Cà phê", 20000, false, "approved");
+        product(goodShop, 2, "Sinh tố", 30000, true, "pending");
+        entityManager.flush();
+    }
+
+    @Test
+    void filtersApprovedAvailableProducts() {
+        assertEquals(List.of("Bún chả", "Phở gà", "Phở bò"), names(page(q -> q.setCategoryId(1))));
+        assertEquals(List.of("Trà đá", "Bún chả"), names(page(q -> q.setShopId(unratedShop))));
+        assertEquals(List.of("Bún chả", "Phở gà"), names(page(q -> {
+            q.setMinPrice(10000.0);
+            q.setMaxPrice(40000.0);
+        })));
+        assertEquals(List.of("Cà phê"), names(page(q -> q.setAvailable(false))));
+    }
+
+    @Test
+    void walksEveryPageWithCursorsWithoutGapsOrRepeats() {
+        for (ProductCatalogQuery.Sort sort : ProductCatalogQuery.Sort.values()) {
+            List<String> seen = new ArrayList<>();
+            String cursor = null;
+            do {
+                String after = cursor;
+                ProductPageDTO page = page(q -> {
+                    q.setSort(sort);
+                    q.setSize(1);
+                    q.setCursor(after);
+                });
+                seen.addAll(names(page));
+                cursor = page.getNextCursor();
+                assertEquals(cursor != null, page.isHasMore());
+            } while (cursor != null);
+            assertEquals(4, seen.size(), sort + ": " + seen);
+            assertEquals(4, seen.stream().distinct().count(), sort + ": " + seen);
+        }
+        // Equal prices: lower id first
+        assertEquals(List.of("Trà đá", "Phở gà", "Bún chả", "Phở bò"),
+                names(page(q -> q.setSort(ProductCatalogQuery.Sort.PRICE_ASC))));
+        // Rated shop first, unrated shops last
+        assertEquals(List.of("Phở gà", "Phở bò", "Trà đá", "Bún chả"),
+                names(page(q -> q.setSort(ProductCatalogQuery.Sort.RATING))));
+    }
+
+    @Test
+    void rejectsCursorFromAnotherSortOrder() {
+        ProductPageDTO first = page(q -> q.setSize(1));
+        assertTrue(first.isHasMore());
+        assertThrows(IllegalArgumentException.class, () -> page(q -> {
+            q.setSort(ProductCatalogQuery.Sort.PRICE_ASC);
+            q.setCursor(first.getNextCursor());
+        }));
+        assertThrows(IllegalArgumentException.class, () -> page(q -> q.setCursor("not-a-cursor")));
+        assertFalse(page(q -> q.setSize(10)).isHasMore());
+    }
+
+    private ProductPageDTO page(java.util.function.Consumer<ProductCatalogQuery> filters) {
+        ProductCatalogQuery query = new ProductCatalogQuery();
+        filters.accept(query);
+        return productService.getCatalogPage(query);
+    }
+
+    private static List<String> names(ProductPageDTO page) {
+        return page.getProducts().stream().map(ProductSummaryDTO::getName).collect(Collectors.toList());
+    }
+
+    private int shop(int sellerId, Float rating) {
+        Shop shop = new Shop();
+        shop.setSellerId(sellerId);
+        shop.setName("Shop " + sellerId);
+        shop.setAddress("Hà Nội");
+        shop.setRating(rating);
+        return entityManager.persist(shop).getId();
+    }
+
+    private void product(int shopId, int categoryId, String name, double price, boolean available, String approval) {
+        Product product = new Product(shopId, categoryId, name, null, price, available, null, "active");
+        product.setApprovalStatus(approval);
+        entityManager.persist(product);
+    }
+}
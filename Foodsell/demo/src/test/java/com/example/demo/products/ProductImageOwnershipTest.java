@@ -0,0 +1,86 @@
+package com.example.demo.products;
+
+import com.example.demo.Users.User;
+import com.example.demo.config.FileUploadService;
+import com.example.demo.shops.Shop;
+import com.example.demo.shops.ShopService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ProductImageOwnershipTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    private final ProductService productService = mock(ProductService.class);
+    private final FileUploadService fileUploadService = mock(FileUploadService.class);
+    private final ShopService shopService = mock(ShopService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        Product product = new Product(3, 1, "Phở bò", null, 45000, true, null, "active");
+        product.setId(10);
+        Shop shop = new Shop();
+        shop.setId(3);
+        shop.setSellerId(7);
+        when(productService.getProductById(10)).thenReturn(Optional.of(product));
+        when(productService.updateProduct(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(shopService.getShopById(3)).thenReturn(Optional.of(shop));
+
+        ProductController controller = new ProductController(productService);
+        ReflectionTestUtils.setField(controller, "fileUploadService", fileUploadService);
+        ReflectionTestUtils.setField(controller, "shopService", shopService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void otherUsersCannotReplaceAShopsProductImage() throws Exception {
+        mockMvc.perform(put("/api/products/10/image").principal(login(8, "customer"))
+                        .contentType(MediaType.IMAGE_PNG).content(PNG))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(fileUploadService);
+    }
+
+    @Test
+    void owningSellerAndAdminsCanReplaceIt() throws Exception {
+        when(fileUploadService.uploadProductImageStream(anyInt(), any(), anyLong()))
+                .thenReturn("uploads/blobs/ab/new.png");
+
+        mockMvc.perform(put("/api/products/10/image").principal(login(7, "seller"))
+                        .contentType(MediaType.IMAGE_PNG).content(PNG))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/products/10/image").principal(login(1, "admin"))
+                        .contentType(MediaType.IMAGE_PNG).content(PNG))
+                .andExpect(status().isOk());
+
+        verify(fileUploadService).uploadProductImageStream(eq(7), any(), anyLong());
+        verify(fileUploadService).uploadProductImageStream(eq(1), any(), anyLong());
+    }
+
+    private static UsernamePasswordAuthenticationToken login(int id, String role) {
+        User user = new User();
+        user.setId(id);
+        user.setRole(role);
+        return new UsernamePasswordAuthenticationToken(user, null, List.of());
+    }
+}
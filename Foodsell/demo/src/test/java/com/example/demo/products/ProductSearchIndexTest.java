@@ -0,0 +1,62 @@
+package com.example.demo.products;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex(mock(ProductRepository.class));
+        index.update(product(1, "Phở Bò Đặc Biệt", "Nước dùng hầm xương 12 tiếng"));
+        index.update(product(2, "Bún bò Huế", "Cay nồng, chả cua"));
+        index.update(product(3, "Cơm tấm sườn", "Ăn kèm canh phở"));
+        index.update(product(4, "Bánh mì bò kho", "Bò kho nóng"));
+    }
+
+    @Test
+    void foldsVietnameseDiacritics() {
+        assertEquals("pho bo dac biet", ProductSearchIndex.fold("Phở Bò Đặc Biệt"));
+        assertEquals(List.of(1), index.search("pho bo dac", 10));
+        assertEquals(List.of(1), index.search("PHỞ BÒ ĐẶC", 10));
+    }
+
+    @Test
+    void matchesLastWordAsPrefixAndRanksNameHitsFirst() {
+        // "pho" in the name of product 1, only in the description of product 3
+        assertEquals(List.of(1, 3), index.search("pho", 10));
+        assertEquals(List.of(1, 3), index.search("ph", 10));
+        // Complete word (trailing space): no prefix expansion
+        assertTrue(index.search("ph ", 10).isEmpty());
+        // Every word has to match
+        assertEquals(List.of(4), index.search("bo kh", 10));
+        assertEquals(1, index.search("bo", 1).size());
+    }
+
+    @Test
+    void dropsProductsThatAreNoLongerVisible() {
+        Product hidden = product(2, "Bún bò Huế", "Cay nồng, chả cua");
+        hidden.setAvailable(false);
+        index.update(hidden);
+        index.remove(4);
+
+        assertEquals(List.of(1), index.search("bo", 10));
+        assertTrue(index.search("hue", 10).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    private static Product product(int id, String name, String description) {
+        Product product = new Product(1, 1, name, description, 30000, true, null, "active");
+        product.setId(id);
+        product.setApprovalStatus("approved");
+        return product;
+    }
+}
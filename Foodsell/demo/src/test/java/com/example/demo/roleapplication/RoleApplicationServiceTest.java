@@ -0,0 +1,42 @@
+package com.example.demo.roleapplication;
+
+import com.example.demo.Users.User;
+import com.example.demo.Users.UserRepository;
+import com.example.demo.shops.Shop;
+import com.example.demo.shops.ShopService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoleApplicationServiceTest {
+
+    private final RoleApplicationRepository applications = mock(RoleApplicationRepository.class);
+    private final UserRepository users = mock(UserRepository.class);
+    private final ShopService shopService = mock(ShopService.class);
+    private final RoleApplicationService service = new RoleApplicationService(applications, users, shopService);
+
+    @Test
+    void approvedSellerGetsAShopThroughShopService() {
+        RoleApplication application = new RoleApplication(7, "seller", "Bán phở", "Phở Hà Nội", "12 Lý Thường Kiệt", null);
+        User user = new User();
+        user.setId(7);
+        user.setRole("customer");
+        when(applications.findById(3)).thenReturn(Optional.of(application));
+        when(users.findById(7)).thenReturn(Optional.of(user));
+
+        service.approveApplication(3, 1, "ok");
+
+        // ShopService.createShop also puts the shop into search suggestions
+        ArgumentCaptor<Shop> shop = ArgumentCaptor.forClass(Shop.class);
+        verify(shopService).createShop(shop.capture());
+        assertEquals(7, shop.getValue().getSellerId());
+        assertEquals("Phở Hà Nội", shop.getValue().getName());
+        assertEquals("seller", user.getRole());
+    }
+}
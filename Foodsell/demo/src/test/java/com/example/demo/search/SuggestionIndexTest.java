@@ -0,0 +1,72 @@
+package com.example.demo.search;
+
+import com.example.demo.categories.Category;
+import com.example.demo.categories.CategoryRepository;
+import com.example.demo.dto.SuggestionDTO;
+import com.example.demo.shops.Shop;
+import com.example.demo.shops.ShopRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class SuggestionIndexTest {
+
+    private SuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SuggestionIndex(mock(ShopRepository.class), mock(CategoryRepository.class));
+        Category pho = new Category("Phở", "Vietnamese noodle soup");
+        pho.setId(1);
+        index.putCategory(pho);
+        Shop shop = new Shop(10, "Phở Thìn Bờ Hồ", null, "13 Lò Đúc", null);
+        shop.setId(5);
+        index.putShop(shop);
+        index.putProduct(100, "Phở bò tái");
+        index.putProduct(101, "Phở Bò Tái");
+        index.putProduct(102, "Bò kho");
+        index.putProduct(103, "Bánh mì bò");
+    }
+
+    @Test
+    void completesFoldedPrefixesCategoriesFirst() {
+        List<SuggestionDTO> suggestions = index.suggest("pho", 10);
+
+        assertEquals(List.of("Phở", "Phở Thìn Bờ Hồ", "Phở bò tái"), texts(suggestions));
+        assertEquals("category", suggestions.get(0).getType());
+        assertEquals(5, suggestions.get(1).getId());
+    }
+
+    @Test
+    void ranksNameStartsBeforeLaterWords() {
+        // "Bờ" folds to "bo" as well; same-length names fall back to alphabetical order
+        assertEquals(List.of("Bò kho", "Phở Thìn Bờ Hồ", "Bánh mì bò", "Phở bò tái"), texts(index.suggest("bo", 10)));
+        assertEquals(List.of("Bò kho"), texts(index.suggest("bo", 1)));
+        // Trailing space: only words following "pho"
+        assertEquals(List.of("Phở Thìn Bờ Hồ", "Phở bò tái"), texts(index.suggest("pho ", 10)));
+    }
+
+    @Test
+    void followsRemovalsAndBans() {
+        index.removeProduct(100);
+        assertEquals(List.of("Phở", "Phở Thìn Bờ Hồ", "Phở bò tái"), texts(index.suggest("pho", 10)));
+        index.removeProduct(101);
+        index.removeCategory(1);
+        Shop banned = new Shop(10, "Phở Thìn Bờ Hồ", null, "13 Lò Đúc", null);
+        banned.setId(5);
+        banned.setIsBanned(true);
+        index.putShop(banned);
+
+        assertTrue(index.suggest("pho", 10).isEmpty());
+    }
+
+    private static List<String> texts(List<SuggestionDTO> suggestions) {
+        return suggestions.stream().map(SuggestionDTO::getText).collect(Collectors.toList());
+    }
+}
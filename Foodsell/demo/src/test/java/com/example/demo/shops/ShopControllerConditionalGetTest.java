@@ -0,0 +1,52 @@
+package com.example.demo.shops;
+
+import com.example.demo.config.CollectionVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ShopControllerConditionalGetTest {
+
+    private final ShopService shopService = mock(ShopService.class);
+    private final CollectionVersions versions = new CollectionVersions(0);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        when(shopService.getAllShops()).thenReturn(List.of());
+        mockMvc = MockMvcBuilders.standaloneSetup(new ShopController(shopService, versions)).build();
+    }
+
+    @Test
+    void answersMatchingETagWithoutLoadingShops() throws Exception {
+        String etag = mockMvc.perform(get("/api/shops"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/shops").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(shopService, times(1)).getAllShops();
+
+        // A write changes the stamp: the next conditional GET gets the new list
+        versions.bump(CollectionVersions.SHOPS);
+        mockMvc.perform(get("/api/shops").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        verify(shopService, times(2)).getAllShops();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.testslice;
+
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.annotation.AliasFor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// @DataJpaTest on the embedded H2 "h2" profile, limited to the given H2Slice configurations
+// (e.g. @H2JpaTest(H2Slice.Orders.class)) instead of everything DemoApplication scans
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@ContextConfiguration
+public @interface H2JpaTest {
+
+    @AliasFor(annotation = ContextConfiguration.class, attribute = "classes")
+    Class<?>[] value();
+}
@@ -0,0 +1,60 @@
+package com.example.testslice;
+
+import com.example.demo.Orders.Order;
+import com.example.demo.Orders.OrderItemBatchRepository;
+import com.example.demo.Orders.OrderPricing;
+import com.example.demo.Orders.OrderService;
+import com.example.demo.config.CollectionVersions;
+import com.example.demo.config.UploadBlob;
+import com.example.demo.products.Product;
+import com.example.demo.products.ProductCatalogCache;
+import com.example.demo.products.ProductCatalogRepository;
+import com.example.demo.products.ProductSearchIndex;
+import com.example.demo.products.ProductService;
+import com.example.demo.shops.Shop;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+// Module slices for tests and benchmarks on the embedded H2 "h2" profile (see H2JpaTest).
+// This package is outside com.example.demo on purpose: DemoApplication's @ComponentScan would otherwise pick
+// these configurations up in the full application context and register every repository twice.
+public final class H2Slice {
+
+    private H2Slice() {
+    }
+
+    // Order module, plus the products it reads
+    @Configuration
+    @EntityScan(basePackageClasses = {Order.class, Product.class})
+    @EnableJpaRepositories(basePackageClasses = {Order.class, Product.class})
+    @Import({OrderService.class, OrderItemBatchRepository.class, OrderPricing.class})
+    public static class Orders {
+    }
+
+    // Product catalogue (service, search index, list cache), plus the shops products belong to
+    @Configuration
+    @EntityScan(basePackageClasses = {Product.class, Shop.class})
+    @EnableJpaRepositories(basePackageClasses = {Product.class})
+    @Import({ProductService.class, ProductSearchIndex.class, ProductCatalogRepository.class, ProductCatalogCache.class,
+            CollectionVersions.class})
+    public static class Products {
+    }
+
+    // upload_blobs (BlobStore reference counts)
+    @Configuration
+    @EntityScan(basePackageClasses = UploadBlob.class)
+    @EnableJpaRepositories(basePackageClasses = UploadBlob.class)
+    public static class Uploads {
+    }
+
+    // Orders slice as a standalone application, for JMH benchmarks started outside the test framework
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @Import(Orders.class)
+    public static class OrdersApplication {
+    }
+}
@@ -7,6 +7,9 @@ import { useCart } from "../../contexts/CartContext"
 import { getShopName } from "../../constants/shopNames"
 import { getCategoryName } from "../../constants/categoryNames"
 
+// Ảnh upload lên server có bản thu nhỏ (?size=thumb|small|medium); danh sách chỉ cần bản small
+const listImageUrl = (url) => (url && url.includes("/uploads/") ? `${url}?size=small` : url)
+
 const ProductList = ({ category, products: externalProducts, layout = 'grid' }) => {
   const [products, setProducts] = useState([])
   const [selectedProduct, setSelectedProduct] = useState(null)
@@ -115,7 +118,7 @@ const ProductList = ({ category, products: externalProducts, layout = 'grid' })
             >
               {product.imageUrl || product.image_url || product.image ? (
                 <img
-                  src={product.imageUrl || product.image_url || product.image} 
+                  src={listImageUrl(product.imageUrl || product.image_url || product.image)} 
                   alt={product.name}
                   onError={(e) => {
                     console.log('❌ Image load error for product:', product.name, 'URL:', e.target.src);